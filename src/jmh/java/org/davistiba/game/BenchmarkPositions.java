@@ -0,0 +1,67 @@
+package org.davistiba.game;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Standard positions shared by the benchmarks, so that results stay comparable between builds.
+ */
+public final class BenchmarkPositions {
+
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * Gets a standard position with the ComputerEnemy to move.
+     *
+     * @param name "opening" (the initial position), "middlegame" (after 30 random plies) or "endgame" (kings and
+     *             a few men)
+     * @return position
+     */
+    public static GameState get(String name) {
+        switch (name) {
+            case "opening":
+                return new GameState(BitBoard.initial(StartPlayer.AI));
+            case "middlegame":
+                return randomPosition(7, 30);
+            case "endgame":
+                return position(bits(22, 27), bits(12, 40), bits(30, 36, 44), bits(8));
+        }
+        throw new IllegalArgumentException("Unknown position " + name);
+    }
+
+    private static GameState position(long aiMen, long aiKings, long humanMen, long humanKings) {
+        return new GameState(BitBoard.of(aiMen, aiKings, humanMen, humanKings, StartPlayer.AI));
+    }
+
+    private static long bits(int... bits) {
+        long mask = 0;
+        for (int bit : bits) {
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    /**
+     * Plays random moves from the initial position until the ComputerEnemy is to move after at least the given
+     * number of plies. Forced takes are on, as in a default game.
+     */
+    private static GameState randomPosition(long seed, int plies) {
+        boolean forceTakes = Settings.FORCETAKES;
+        Settings.FORCETAKES = true;
+        try {
+            Random random = new Random(seed);
+            GameState state = new GameState(BitBoard.initial(StartPlayer.AI));
+            for (int i = 0; i < plies || state.getTurn() != StartPlayer.AI; i++) {
+                ArrayList<GameState> successors = state.getSuccessors();
+                if (successors.isEmpty()) {
+                    throw new IllegalStateException("Game ended after " + i + " plies");
+                }
+                state = successors.get(random.nextInt(successors.size()));
+            }
+            return state;
+        } finally {
+            Settings.FORCETAKES = forceTakes;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.davistiba.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Static evaluation with each heuristic selectable in {@link Settings#HEURISTIC}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicBenchmark {
+
+    @Param({"1", "2", "3"})
+    public int heuristic;
+
+    @Param({"opening", "middlegame", "endgame"})
+    public String position;
+
+    private int savedHeuristic;
+    private GameState state;
+    private SearchBoard board;
+
+    @Setup
+    public void setUp() {
+        savedHeuristic = Settings.HEURISTIC;
+        Settings.HEURISTIC = heuristic;
+        state = BenchmarkPositions.get(position);
+        board = new SearchBoard(state.getBoard());
+    }
+
+    @TearDown
+    public void tearDown() {
+        Settings.HEURISTIC = savedHeuristic;
+    }
+
+    @Benchmark
+    public int gameState() {
+        return state.computeHeuristic(StartPlayer.AI);
+    }
+
+    @Benchmark
+    public int searchBoard() {
+        return board.computeHeuristic(StartPlayer.AI);
+    }
+}
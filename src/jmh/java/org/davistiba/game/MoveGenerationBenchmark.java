@@ -0,0 +1,79 @@
+package org.davistiba.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation and move application, through the immutable {@link GameState} API used by the GUI and through
+ * the mutable {@link SearchBoard} used by the search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+
+    @Param({"opening", "middlegame", "endgame"})
+    public String position;
+
+    private GameState state;
+    private SearchBoard board;
+    private MoveList moves;
+
+    @Setup
+    public void setUp() {
+        state = BenchmarkPositions.get(position);
+        board = new SearchBoard(state.getBoard());
+        moves = new MoveList();
+        board.generateMoves(moves);
+    }
+
+    @Benchmark
+    public ArrayList<GameState> getSuccessors() {
+        return state.getSuccessors();
+    }
+
+    @Benchmark
+    public MoveList generateMoves() {
+        MoveList out = new MoveList();
+        board.generateMoves(out);
+        return out;
+    }
+
+    /**
+     * Creates the successor positions one by one, as the GUI does when it shows the valid moves.
+     */
+    @Benchmark
+    public void play(Blackhole blackhole) {
+        BitBoard position = state.getBoard();
+        for (int i = 0; i < moves.size(); i++) {
+            blackhole.consume(position.play(moves.get(i)));
+        }
+    }
+
+    @Benchmark
+    public long makeUnmake() {
+        long keys = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            keys ^= board.getKey();
+            board.unmakeMove();
+        }
+        return keys;
+    }
+}
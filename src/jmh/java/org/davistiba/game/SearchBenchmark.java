@@ -0,0 +1,78 @@
+package org.davistiba.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A full {@link ComputerEnemy#makeMove(GameState, StartPlayer)} at fixed depths, on one thread and with empty
+ * transposition and history tables for every move, so that each search does the same work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"4", "6", "8"})
+    public int depth;
+
+    @Param({"opening", "middlegame", "endgame"})
+    public String position;
+
+    // held here so the level is not lost when the logger is garbage collected
+    private static final Logger engineLogger = Logger.getLogger(String.valueOf(ComputerEnemy.class));
+
+    private String tablebaseDir;
+    private GameState state;
+    private TranspositionTable table;
+    private HistoryTable history;
+    private ComputerEnemy ai;
+
+    @Setup
+    public void setUp() {
+        // no endgame tables, so results do not depend on files on the machine
+        tablebaseDir = Settings.TABLEBASE_DIR;
+        Settings.TABLEBASE_DIR = null;
+        // a log line per move would be measured too
+        engineLogger.setLevel(Level.WARNING);
+        state = BenchmarkPositions.get(position);
+        table = new TranspositionTable(16);
+        history = new HistoryTable();
+        ai = new ComputerEnemy(depth, 0, StartPlayer.AI, table, history, 1, Thread.NORM_PRIORITY);
+    }
+
+    @Setup(org.openjdk.jmh.annotations.Level.Invocation)
+    public void clearTables() {
+        table.clear();
+        history.clear();
+        if (ai.getEvaluationCache() != null) {
+            ai.getEvaluationCache().clear();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Settings.TABLEBASE_DIR = tablebaseDir;
+    }
+
+    @Benchmark
+    public GameState makeMove() {
+        return ai.makeMove(state, StartPlayer.AI);
+    }
+}
@@ -0,0 +1,88 @@
+package org.davistiba.gui;
+
+import org.davistiba.game.BenchmarkPositions;
+import org.davistiba.game.GameState;
+import org.davistiba.game.PieceLogic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redrawing the checkerboard after a move, in headless mode.
+ * <p>
+ * GUIControl is a JFrame, which cannot be created without a display, so this rebuilds the same component tree as
+ * its updateCheckerBoard (a new BoardView per square, a PieceModel per piece and a ValidMoveModel per valid move)
+ * in a plain panel, lays it out and paints it into an image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BoardRenderingBenchmark {
+
+    @Param({"opening", "middlegame", "endgame"})
+    public String position;
+
+    private GameState state;
+    private ArrayList<GameState> possibleMoves;
+    private JPanel checkerboardPanel;
+    private BufferedImage image;
+
+    @Setup
+    public void setUp() {
+        state = BenchmarkPositions.get(position);
+        possibleMoves = state.getSuccessors();
+        checkerboardPanel = new JPanel(new GridBagLayout());
+        int size = GameState.SIDE_LENGTH * SettingsView.squareSize;
+        image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+    }
+
+    @Benchmark
+    public BufferedImage updateCheckerBoard() {
+        checkerboardPanel.removeAll();
+        GridBagConstraints c = new GridBagConstraints();
+        for (int i = 0; i < GameState.NUM_SQUARES; i++) {
+            PieceLogic piece = state.getPiece(i);
+            if (piece != null) {
+                c.gridx = i % GameState.SIDE_LENGTH;
+                c.gridy = i / GameState.SIDE_LENGTH;
+                checkerboardPanel.add(new PieceModel(i, piece, null), c);
+            }
+        }
+        BoardView[] squares = new BoardView[GameState.NUM_SQUARES];
+        for (int i = 0; i < GameState.NUM_SQUARES; i++) {
+            c.gridx = i % GameState.SIDE_LENGTH;
+            c.gridy = i / GameState.SIDE_LENGTH;
+            squares[i] = new BoardView(c.gridx, c.gridy);
+            checkerboardPanel.add(squares[i], c);
+        }
+        for (GameState move : possibleMoves) {
+            squares[move.getToPos()].add(new ValidMoveModel(move));
+        }
+        checkerboardPanel.setSize(checkerboardPanel.getPreferredSize());
+        checkerboardPanel.validate();
+        Graphics2D g = image.createGraphics();
+        try {
+            checkerboardPanel.printAll(g);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+}
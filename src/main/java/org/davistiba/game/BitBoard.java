@@ -0,0 +1,421 @@
+package org.davistiba.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bitboard representation of a board position.
+ * <p>
+ * Only the 50 dark squares can ever hold a piece, so each side's men and kings are stored as bitmasks in a
+ * {@code long}. Dark squares are numbered so that every diagonal step is a fixed shift: one row down the board
+ * (towards the HUMAN side) is a shift of +5 or +6 bits, one row up is a shift of -5 or -6 bits. Bits 10, 21, 32
+ * and 43 are "ghost" squares that never hold a piece; they absorb steps over the left and right board edges, so
+ * move generation needs no bounds checks.
+ */
+public final class BitBoard {
+
+    // number of bits used by the layout (50 dark squares + 4 ghost squares)
+    static final int NUM_BITS = 54;
+    // all dark squares, ghost squares excluded
+    static final long VALID = ((1L << NUM_BITS) - 1) & ~((1L << 10) | (1L << 21) | (1L << 32) | (1L << 43));
+    // rows on which men are crowned
+    static final long AI_PROMOTION_ROW = 0x1FL << 49;
+    static final long HUMAN_PROMOTION_ROW = 0x1FL;
+
+    // diagonal step offsets: men only move forward, kings move in all four directions
+    private static final int[] AI_MAN_DIRECTIONS = {5, 6};
+    private static final int[] HUMAN_MAN_DIRECTIONS = {-6, -5};
+    static final int[] KING_DIRECTIONS = {-6, -5, 5, 6};
+
+    // conversion between board squares (0..99) and bit indices
+    private static final int[] SQUARE_TO_BIT = new int[GameState.NUM_SQUARES];
+    private static final int[] BIT_TO_SQUARE = new int[NUM_BITS];
+
+    // jumps by bit * 4 + index into KING_DIRECTIONS: masks of the jumped and the landing bit, 0 past the top or
+    // bottom row, so a jump is tested with two ANDs and no bounds checks
+    static final long[] JUMP_OVER = new long[NUM_BITS * 4];
+    static final long[] JUMP_LANDING = new long[NUM_BITS * 4];
+
+    static {
+        Arrays.fill(SQUARE_TO_BIT, -1);
+        Arrays.fill(BIT_TO_SQUARE, -1);
+        for (int square = 0; square < GameState.NUM_SQUARES; square++) {
+            int y = square / GameState.SIDE_LENGTH;
+            int x = square % GameState.SIDE_LENGTH;
+            if ((x + y) % 2 == 1) {
+                int bit = (11 * y + x - 1) / 2;
+                SQUARE_TO_BIT[square] = bit;
+                BIT_TO_SQUARE[bit] = square;
+            }
+        }
+        for (int bit = 0; bit < NUM_BITS; bit++) {
+            for (int i = 0; i < KING_DIRECTIONS.length; i++) {
+                int landing = bit + 2 * KING_DIRECTIONS[i];
+                if (landing >= 0 && landing < NUM_BITS) {
+                    JUMP_OVER[bit * 4 + i] = 1L << (bit + KING_DIRECTIONS[i]);
+                    JUMP_LANDING[bit * 4 + i] = 1L << landing;
+                }
+            }
+        }
+    }
+
+    final long aiMen;
+    final long aiKings;
+    final long humanMen;
+    final long humanKings;
+    // player's turn
+    final StartPlayer turn;
+    // most recent move, 0 if none
+    final long move;
+    // Zobrist key of the position (pieces and turn)
+    final long key;
+
+    BitBoard(long aiMen, long aiKings, long humanMen, long humanKings, StartPlayer turn, long move, long key) {
+        this.aiMen = aiMen;
+        this.aiKings = aiKings;
+        this.humanMen = humanMen;
+        this.humanKings = humanKings;
+        this.turn = turn;
+        this.move = move;
+        this.key = key;
+    }
+
+    /**
+     * Creates a position that no move led to.
+     */
+    static BitBoard of(long aiMen, long aiKings, long humanMen, long humanKings, StartPlayer turn) {
+        return new BitBoard(aiMen, aiKings, humanMen, humanKings, turn, 0,
+                Zobrist.compute(aiMen, aiKings, humanMen, humanKings, turn));
+    }
+
+    /**
+     * Set up initial board position: ComputerEnemy men in the first 3 rows, human men in the last 5 rows.
+     *
+     * @param firstMove player who moves first
+     * @return initial position
+     */
+    public static BitBoard initial(StartPlayer firstMove) {
+        long ai = 0;
+        long human = 0;
+        for (int square = 0; square < GameState.NUM_SQUARES; square++) {
+            int bit = SQUARE_TO_BIT[square];
+            int y = square / GameState.SIDE_LENGTH;
+            if (bit >= 0 && y < 3) {
+                ai |= 1L << bit;
+            } else if (bit >= 0 && y > 4) {
+                human |= 1L << bit;
+            }
+        }
+        return of(ai, 0, human, 0, firstMove);
+    }
+
+    /**
+     * Converts a board square (0..99) to its bit index.
+     *
+     * @param square board square
+     * @return bit index, or -1 for a light square
+     */
+    public static int toBit(int square) {
+        return square >= 0 && square < SQUARE_TO_BIT.length ? SQUARE_TO_BIT[square] : -1;
+    }
+
+    /**
+     * Converts a bit index to its board square (0..99).
+     *
+     * @param bit bit index
+     * @return board square, or -1 for a ghost bit
+     */
+    public static int toSquare(int bit) {
+        return bit >= 0 && bit < BIT_TO_SQUARE.length ? BIT_TO_SQUARE[bit] : -1;
+    }
+
+    /**
+     * Turns squares half way round the board, so that each player's promotion row becomes the other's.
+     */
+    static long rotate(long mask) {
+        return Long.reverse(mask) >>> Long.SIZE - NUM_BITS;
+    }
+
+    static long shift(long mask, int offset) {
+        return offset > 0 ? mask << offset : mask >>> -offset;
+    }
+
+    static int[] manDirections(StartPlayer player) {
+        return player == StartPlayer.AI ? AI_MAN_DIRECTIONS : HUMAN_MAN_DIRECTIONS;
+    }
+
+    /**
+     * Index of a player's first man direction in {@link #KING_DIRECTIONS}; the two man directions are adjacent.
+     */
+    static int firstManDirection(StartPlayer player) {
+        return player == StartPlayer.AI ? 2 : 0;
+    }
+
+    static long promotionRow(StartPlayer player) {
+        return player == StartPlayer.AI ? AI_PROMOTION_ROW : HUMAN_PROMOTION_ROW;
+    }
+
+    public long men(StartPlayer player) {
+        return player == StartPlayer.AI ? aiMen : humanMen;
+    }
+
+    public long kings(StartPlayer player) {
+        return player == StartPlayer.AI ? aiKings : humanKings;
+    }
+
+    public long pieces(StartPlayer player) {
+        return men(player) | kings(player);
+    }
+
+    public long empty() {
+        return VALID & ~(aiMen | aiKings | humanMen | humanKings);
+    }
+
+    public int pieceCount(StartPlayer player) {
+        return Long.bitCount(pieces(player));
+    }
+
+    public int kingCount(StartPlayer player) {
+        return Long.bitCount(kings(player));
+    }
+
+    public StartPlayer getTurn() {
+        return turn;
+    }
+
+    /**
+     * Gets the move that led to this position.
+     *
+     * @return encoded move, 0 if none
+     */
+    public long getMove() {
+        return move;
+    }
+
+    public boolean isGameOver() {
+        return (aiMen | aiKings) == 0 || (humanMen | humanKings) == 0;
+    }
+
+    /**
+     * Get the piece on a bit index.
+     *
+     * @param bit bit index
+     * @return piece, or null if the square is empty
+     */
+    public PieceLogic getPiece(int bit) {
+        if (bit < 0) {
+            return null;
+        }
+        long mask = 1L << bit;
+        if (((aiMen | aiKings) & mask) != 0) {
+            return PieceLogic.of(StartPlayer.AI, (aiKings & mask) != 0);
+        }
+        if (((humanMen | humanKings) & mask) != 0) {
+            return PieceLogic.of(StartPlayer.HUMAN, (humanKings & mask) != 0);
+        }
+        return null;
+    }
+
+    /**
+     * Pieces of the given player that can capture.
+     *
+     * @param player player to check
+     * @return mask of pieces with at least one jump
+     */
+    long jumpers(StartPlayer player) {
+        return MoveGenerator.jumpers(player, men(player), kings(player), pieces(player.getOpposite()), empty());
+    }
+
+    /**
+     * Can the side to move capture?
+     *
+     * @return true if at least one jump is available
+     */
+    public boolean hasJump() {
+        return jumpers(turn) != 0;
+    }
+
+    /**
+     * Gets valid successor positions for the side to move, respecting forced takes.
+     *
+     * @return successor positions
+     */
+    public ArrayList<BitBoard> successors() {
+        return successors(VALID);
+    }
+
+    /**
+     * Gets valid successors of the side to move, with forced takes applied among the given pieces only.
+     *
+     * @param fromMask only pieces on these bits are moved
+     * @return successor positions
+     */
+    public ArrayList<BitBoard> successors(long fromMask) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generate(turn, men(turn) & fromMask, kings(turn) & fromMask, pieces(turn.getOpposite()),
+                empty(), moves);
+        return play(moves);
+    }
+
+    /**
+     * Gets valid jump or non-jump successors of the side to move.
+     *
+     * @param fromMask only pieces on these bits are moved
+     * @param jump     must jump?
+     * @return successor positions
+     */
+    public ArrayList<BitBoard> successors(long fromMask, boolean jump) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generate(turn, men(turn) & fromMask, kings(turn) & fromMask, pieces(turn.getOpposite()),
+                empty(), jump, moves);
+        return play(moves);
+    }
+
+    private ArrayList<BitBoard> play(MoveList moves) {
+        ArrayList<BitBoard> result = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            result.add(play(moves.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Creates the position after a move of the side to move.
+     *
+     * @param move encoded move
+     * @return new position
+     */
+    public BitBoard play(long move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        long fromMask = 1L << from;
+        long toMask = 1L << to;
+        boolean king = (kings(turn) & fromMask) != 0;
+        boolean crowned = Move.isCrowning(move);
+        StartPlayer opponent = turn.getOpposite();
+        long key = this.key ^ Zobrist.turn(turn) ^ Zobrist.turn(opponent)
+                ^ Zobrist.piece(turn, king, from) ^ Zobrist.piece(turn, king || crowned, to);
+        long men = men(turn) & ~fromMask;
+        long kings = kings(turn) & ~fromMask;
+        if (king || crowned) {
+            kings |= toMask;
+        } else {
+            men |= toMask;
+        }
+        long opponentMen = men(opponent);
+        long opponentKings = kings(opponent);
+        // remove captured pieces
+        for (long c = Move.captures(move); c != 0; c &= c - 1) {
+            int captured = Long.numberOfTrailingZeros(c);
+            key ^= Zobrist.piece(opponent, (opponentKings & (1L << captured)) != 0, captured);
+        }
+        opponentMen &= ~Move.captures(move);
+        opponentKings &= ~Move.captures(move);
+        return turn == StartPlayer.AI
+                ? new BitBoard(men, kings, opponentMen, opponentKings, opponent, move, key)
+                : new BitBoard(opponentMen, opponentKings, men, kings, opponent, move, key);
+    }
+
+    /**
+     * Gets the positions after each hop of a move, for showing a multi-jump step by step. A path through the
+     * captured pieces is found again, as the move only records which pieces it takes; where several paths take
+     * the same pieces, any of them is as good as the one played. The turn only passes in the last position.
+     *
+     * @param move encoded move of the side to move
+     * @return positions after each hop, ending with {@link #play(long)}; just that one for a non-jump move
+     */
+    public List<BitBoard> hops(long move) {
+        List<BitBoard> result = new ArrayList<>();
+        int from = Move.from(move);
+        long captures = Move.captures(move);
+        int[] path = new int[Long.bitCount(captures) + 1];
+        path[0] = from;
+        boolean king = (kings(turn) & (1L << from)) != 0;
+        int firstDirection = king ? 0 : firstManDirection(turn);
+        int lastDirection = king ? KING_DIRECTIONS.length : firstDirection + 2;
+        if (path.length > 2 && findPath(path, 1, captures, firstDirection, lastDirection, empty() | (1L << from),
+                promotionRow(turn), Move.to(move))) {
+            StartPlayer opponent = turn.getOpposite();
+            long men = men(turn);
+            long kings = kings(turn);
+            long opponentMen = men(opponent);
+            long opponentKings = kings(opponent);
+            for (int i = 1; i < path.length - 1; i++) {
+                long hop = (1L << path[i - 1]) | (1L << path[i]);
+                long captured = 1L << (path[i - 1] + path[i]) / 2;
+                if (king) {
+                    kings ^= hop;
+                } else {
+                    men ^= hop;
+                }
+                opponentMen &= ~captured;
+                opponentKings &= ~captured;
+                long hopMove = Move.encode(path[i - 1], path[i], captured, false);
+                result.add(turn == StartPlayer.AI
+                        ? new BitBoard(men, kings, opponentMen, opponentKings, turn, hopMove,
+                        Zobrist.compute(men, kings, opponentMen, opponentKings, turn))
+                        : new BitBoard(opponentMen, opponentKings, men, kings, turn, hopMove,
+                        Zobrist.compute(opponentMen, opponentKings, men, kings, turn)));
+            }
+        }
+        result.add(play(move));
+        return result;
+    }
+
+    /**
+     * Fills in the landing squares of a multi-jump, trying the remaining captured pieces depth first. Only the last
+     * hop may land on the promotion row.
+     */
+    private static boolean findPath(int[] path, int hop, long captures, int firstDirection, int lastDirection,
+                                    long empty, long promotionRow, int to) {
+        if (captures == 0) {
+            return path[hop - 1] == to;
+        }
+        int at = path[hop - 1];
+        for (int i = at * 4 + firstDirection; i < at * 4 + lastDirection; i++) {
+            long over = JUMP_OVER[i];
+            if ((captures & over) == 0 || (empty & JUMP_LANDING[i]) == 0
+                    || (promotionRow & JUMP_LANDING[i]) != 0 && captures != over) {
+                continue;
+            }
+            path[hop] = Long.numberOfTrailingZeros(JUMP_LANDING[i]);
+            if (findPath(path, hop + 1, captures & ~over, firstDirection, lastDirection, empty | over, promotionRow,
+                    to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the Zobrist key of the position.
+     *
+     * @return position key
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Two boards are equal if they hold the same position: pieces and turn.
+     * The most recent move is not part of the position.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BitBoard)) {
+            return false;
+        }
+        BitBoard other = (BitBoard) o;
+        return key == other.key && aiMen == other.aiMen && aiKings == other.aiKings && humanMen == other.humanMen
+                && humanKings == other.humanKings && turn == other.turn;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+}
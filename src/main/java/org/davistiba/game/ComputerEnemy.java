@@ -1,53 +1,444 @@
 package org.davistiba.game;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
-public class ComputerEnemy {
+public class ComputerEnemy implements AutoCloseable {
+
+    // score of a won position; wins found closer to the root score higher
+    static final int WIN = 1_000_000;
+    static final int INFINITY = WIN + 1;
 
     private final int searchDepth;
+    private final long moveTimeMs;
     private final StartPlayer player;
+    private final TranspositionTable table;
+    private final HistoryTable history;
+    private final EvaluationCache evaluationCache;
+    // number of search threads, 0 to follow the settings
+    private final int threads;
     private static final Logger logger = Logger.getLogger(String.valueOf(ComputerEnemy.class));
 
+    // search threads of this ComputerEnemy, created for the first parallel search; only the engine thread uses it
+    private ForkJoinPool pool;
+
+    // Searcher of the engine thread, which runs the root of every search
+    private final Searcher engineSearcher;
+    // Searchers of the live search threads, each owned by its thread
+    private final List<Searcher> poolSearchers = new CopyOnWriteArrayList<>();
+    // runs the searches one at a time, off the caller's thread
+    private final ThreadPoolExecutor engineThread;
+
+    // searches are numbered as they are submitted; a search is stopped once its number is at most stoppedSearch
+    private final AtomicInteger submittedSearches = new AtomicInteger();
+    private final AtomicInteger stoppedSearch = new AtomicInteger(-1);
+    private volatile int runningSearch;
+
+    // state of the running search; the clock is null while pondering and for fixed-depth searches
+    private volatile TimeManager clock;
+    private volatile boolean iterationCompleted;
+    private volatile ForkJoinPool threadPool;
+    private volatile boolean splitting;
+    private volatile SearchStatistics statistics;
+    private final SearchMetrics metrics;
+
+    // search of the position after the opponent's expected reply
+    private volatile CompletableFuture<GameState> ponderSearch;
+    private volatile BitBoard ponderPosition;
+
     public ComputerEnemy() {
-        this.searchDepth = Settings.AI_DEPTH;
-        this.player = StartPlayer.AI;
+        this(Settings.AI_DEPTH, Settings.AI_MOVE_TIME_MS, StartPlayer.AI, newTable());
     }
 
     public ComputerEnemy(int searchDepth, StartPlayer player) {
+        this(searchDepth, player, newTable());
+    }
+
+    /**
+     * Creates a fixed-depth ComputerEnemy, which searches every move to the same depth regardless of time.
+     *
+     * @param searchDepth search depth below each root move
+     * @param player      player the search plays for
+     * @param table       transposition table, null to search without one
+     */
+    public ComputerEnemy(int searchDepth, StartPlayer player, TranspositionTable table) {
+        this(searchDepth, 0, player, table);
+    }
+
+    /**
+     * Creates a ComputerEnemy that deepens its search iteratively until the depth limit or the time budget for
+     * the move is reached, and plays the best move of the deepest completed iteration.
+     *
+     * @param searchDepth maximum search depth below each root move
+     * @param moveTimeMs  time budget per move in milliseconds, 0 for a fixed-depth search
+     * @param player      player the search plays for
+     * @param table       transposition table, null to search without one
+     */
+    public ComputerEnemy(int searchDepth, long moveTimeMs, StartPlayer player, TranspositionTable table) {
+        this(searchDepth, moveTimeMs, player, table, new HistoryTable(), 0, Thread.NORM_PRIORITY);
+    }
+
+    /**
+     * Creates a ComputerEnemy with the given search tables and threads, e.g. a background engine for hints.
+     *
+     * @param history  history table for move ordering
+     * @param threads  number of search threads, 0 to follow {@link Settings#AI_THREADS}
+     * @param priority priority of the engine thread
+     */
+    ComputerEnemy(int searchDepth, long moveTimeMs, StartPlayer player, TranspositionTable table,
+                  HistoryTable history, int threads, int priority) {
         this.searchDepth = searchDepth;
+        this.moveTimeMs = moveTimeMs;
         this.player = player;
+        this.table = table;
+        this.history = history;
+        this.evaluationCache = Settings.EVAL_CACHE_MB > 0 ? new EvaluationCache(Settings.EVAL_CACHE_MB) : null;
+        this.threads = threads;
+        this.metrics = SearchMetrics.forPlayer(player);
+        this.engineSearcher = new Searcher(this, player, table);
+        this.engineThread = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, player + " engine");
+                    thread.setDaemon(true);
+                    thread.setPriority(priority);
+                    return thread;
+                });
+        this.engineThread.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Gets the statistics of the most recent search.
+     *
+     * @return statistics, or null if no search has run yet
+     */
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Gets the running totals of all searches for this ComputerEnemy's player.
+     *
+     * @return metrics, shared with the other ComputerEnemy instances playing for the same player
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    HistoryTable getHistory() {
+        return history;
+    }
+
+    EvaluationCache getEvaluationCache() {
+        return evaluationCache;
+    }
+
+    private static TranspositionTable newTable() {
+        return Settings.HASH_SIZE_MB > 0 ? new TranspositionTable(Settings.HASH_SIZE_MB) : null;
+    }
+
+    /**
+     * Gets the pool of search threads, replacing it when the number of threads has changed. The pool is only used
+     * by this ComputerEnemy's searches, which run one at a time, so the old pool is idle when it is shut down.
+     */
+    private ForkJoinPool pool(int threads) {
+        if (pool == null || pool.getParallelism() != threads) {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            pool = new ForkJoinPool(threads, SearchThread::new, null, false);
+        }
+        return pool;
+    }
+
+    /**
+     * Searchers of the engine thread and of the live search threads.
+     */
+    private List<Searcher> searchers() {
+        List<Searcher> result = new ArrayList<>(poolSearchers);
+        result.add(0, engineSearcher);
+        return result;
+    }
+
+    boolean isStopped() {
+        return runningSearch <= stoppedSearch.get();
+    }
+
+    private void stopRunningSearch() {
+        stoppedSearch.accumulateAndGet(runningSearch, Math::max);
     }
 
+    /**
+     * Stops every search this ComputerEnemy has started, including pondering. Stopped searches end within
+     * milliseconds; their futures then complete exceptionally with a {@link CancellationException} unless a
+     * move was already found.
+     */
+    public void stop() {
+        ponderSearch = null;
+        ponderPosition = null;
+        stoppedSearch.accumulateAndGet(submittedSearches.get(), Math::max);
+    }
+
+    /**
+     * Stops every search and lets the engine thread and the search threads end, so that an engine that is no
+     * longer needed does not keep them, or its tables, alive until they time out. Later searches are rejected.
+     */
+    @Override
+    public synchronized void close() {
+        stop();
+        if (!engineThread.isShutdown()) {
+            // the pool is only touched on the engine thread, so it is shut down there, after the stopped search
+            engineThread.execute(() -> {
+                if (pool != null) {
+                    pool.shutdown();
+                }
+            });
+            engineThread.shutdown();
+        }
+    }
+
+    /**
+     * Are nodes below the root split between threads?
+     */
+    boolean isSplitting() {
+        return splitting;
+    }
+
+    ForkJoinPool threadPool() {
+        return threadPool;
+    }
+
+    /**
+     * Gets the Searcher of the calling thread.
+     */
+    Searcher currentSearcher() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof SearchThread && ((SearchThread) thread).engine() == this) {
+            return ((SearchThread) thread).searcher;
+        }
+        return engineSearcher;
+    }
+
+    /**
+     * Stops the search once the clock says the running iteration must be abandoned.
+     */
+    void checkTime() {
+        // the clock can only stop the search once the first iteration has completed
+        TimeManager moveClock = clock;
+        if (moveClock != null && iterationCompleted && moveClock.isOutOfTime()) {
+            stopRunningSearch();
+        }
+    }
+
+    /**
+     * Searches for a move and waits for the result.
+     *
+     * @param currentState  position to move in
+     * @param currentPlayer player to move
+     * @return position after the move
+     */
     public GameState makeMove(GameState currentState, StartPlayer currentPlayer) {
-        if (currentState.getTurn() == currentPlayer) {
-            ArrayList<GameState> possibleMoves = currentState.getSuccessors();
-            return findBestMove(possibleMoves);
-        } else {
+        return makeMoveAsync(currentState, currentPlayer).join();
+    }
+
+    /**
+     * Searches for a move on the engine thread. If the position is the one this ComputerEnemy is pondering on,
+     * the pondering search goes on, from now on against the clock; any other search is stopped first.
+     *
+     * @param currentState  position to move in
+     * @param currentPlayer player to move
+     * @return future of the position after the move, cancelled by {@link #stop()}
+     */
+    public CompletableFuture<GameState> makeMoveAsync(GameState currentState, StartPlayer currentPlayer) {
+        return makeMoveAsync(currentState, currentPlayer, null);
+    }
+
+    /**
+     * Searches for a move on the engine thread, reporting the best move after every completed iteration.
+     *
+     * @param currentState  position to move in
+     * @param currentPlayer player to move
+     * @param progress      called on the engine thread with the position after the best move so far, may be null
+     * @return future of the position after the move, cancelled by {@link #stop()}
+     */
+    public CompletableFuture<GameState> makeMoveAsync(GameState currentState, StartPlayer currentPlayer,
+                                                      Consumer<GameState> progress) {
+        if (currentState.getTurn() != currentPlayer) {
             throw new IllegalStateException("Cannot generate moves for a player when it's not their turn.");
         }
+        BitBoard position = currentState.getBoard();
+        if (ponderSearch != null && position.equals(ponderPosition)) {
+            CompletableFuture<GameState> search = ponderSearch;
+            ponderSearch = null;
+            ponderPosition = null;
+            clock = newClock();
+            return search;
+        }
+        stop();
+        clock = newClock();
+        return submit(position, progress);
+    }
+
+    /**
+     * Starts searching on the opponent's time. The opponent's expected reply is taken from the transposition
+     * table, and the position after it is searched in the background without a time limit. If the opponent then
+     * plays that reply, {@link #makeMoveAsync(GameState, StartPlayer)} continues the search; otherwise it is
+     * stopped, but what it stored in the transposition table stays there. Without a transposition table nothing
+     * happens.
+     *
+     * @param state position after this player's move, with the opponent to move
+     */
+    public void startPondering(GameState state) {
+        stop();
+        if (table == null || state.isGameOver() || state.getTurn() == player) {
+            return;
+        }
+        BitBoard position = expectedReply(state.getBoard());
+        if (position == null || position.isGameOver()) {
+            return;
+        }
+        clock = null;
+        ponderPosition = position;
+        ponderSearch = submit(position, null);
+    }
+
+    /**
+     * Gets the position this ComputerEnemy is pondering on.
+     *
+     * @return position after the opponent's expected reply, or null if not pondering
+     */
+    public GameState getPonderPosition() {
+        return ponderPosition == null ? null : new GameState(ponderPosition);
+    }
+
+    /**
+     * Plays the opponent's best move stored in the transposition table.
+     *
+     * @return position after the opponent's expected reply, or null if the reply is not known
+     */
+    private BitBoard expectedReply(BitBoard position) {
+        long entry = table.probe(position.getKey());
+        if (entry == 0) {
+            return null;
+        }
+        MoveList moves = new MoveList();
+        new SearchBoard(position).generateMoves(moves);
+        long move = Move.find(moves, TranspositionTable.move(entry));
+        return move == 0 ? null : position.play(move);
     }
 
-    private GameState findBestMove(ArrayList<GameState> possibleMoves) {
-        if (possibleMoves.size() == 1) {
-            return possibleMoves.get(0);
+    private CompletableFuture<GameState> submit(BitBoard position, Consumer<GameState> progress) {
+        int id = submittedSearches.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> {
+            runningSearch = id;
+            // the search runs on mutable boards; only the chosen move becomes a new GameState
+            SearchBoard board = new SearchBoard(position);
+            MoveList possibleMoves = new MoveList();
+            board.generateMoves(possibleMoves);
+            if (table != null) {
+                table.newSearch();
+            }
+            long move = findBestMove(board, possibleMoves, progress);
+            if (move == 0) {
+                throw new CancellationException("Search stopped before finding a move");
+            }
+            return new GameState(position.play(move));
+        }, engineThread);
+    }
+
+    private TimeManager newClock() {
+        return moveTimeMs > 0 ? new TimeManager(moveTimeMs) : null;
+    }
+
+    /**
+     * Searches the root moves with iterative deepening until the depth limit, the clock or a stop request ends
+     * the search.
+     *
+     * @param progress called with the position after the best move of every completed iteration, may be null
+     * @return best move, or 0 if the search was stopped before its first iteration completed
+     */
+    private long findBestMove(SearchBoard board, MoveList possibleMoves, Consumer<GameState> progress) {
+        if (possibleMoves.size() <= 1) {
+            return selectRandomMove(possibleMoves);
+        }
+
+        iterationCompleted = false;
+        history.age();
+        if (evaluationCache != null) {
+            evaluationCache.newSearch(Settings.HEURISTIC);
         }
+        for (Searcher s : searchers()) {
+            s.newSearch();
+        }
+        int threads = Math.max(1, this.threads > 0 ? this.threads : Settings.AI_THREADS);
+        BitBoard root = board.toBitBoard();
+        long startTime = System.nanoTime();
+        int[] scores = new int[possibleMoves.size()];
+        MoveList equalBestMoves = null;
+        int completedDepth = 0;
+        int completedScore = 0;
 
-        int bestScore = Integer.MIN_VALUE;
-        ArrayList<GameState> equalBestMoves = new ArrayList<>();
+        // with Lazy SMP the helpers search the whole tree and this thread searches the root moves on its own
+        threadPool = threads > 1 ? pool(threads) : null;
+        splitting = threads > 1 && !Settings.LAZY_SMP && Settings.SPLIT_POINTS;
+        ForkJoinTask<?>[] helpers = null;
+        int rootThreads = threads;
+        if (Settings.LAZY_SMP && threads > 1) {
+            helpers = startHelpers(root, threads - 1);
+            rootThreads = 1;
+        }
 
-        for (GameState move : possibleMoves) {
-            int score = minimax(move, this.searchDepth);
-            if (score > bestScore) {
-                bestScore = score;
-                equalBestMoves.clear();
+        for (int depth = Math.min(1, searchDepth); depth <= searchDepth; depth++) {
+            MoveList iterationBestMoves = searchRoot(board, possibleMoves, scores, depth, rootThreads,
+                    equalBestMoves != null);
+            if (isStopped()) {
+                break;
+            }
+            // read for every iteration, since a pondering search only gets a clock once its move is played
+            TimeManager clock = this.clock;
+            if (clock != null && equalBestMoves != null && !iterationBestMoves.contains(equalBestMoves.get(0))) {
+                // best move is unstable, allow more time
+                clock.onBestMoveChanged();
+            }
+            equalBestMoves = iterationBestMoves;
+            completedDepth = depth;
+            iterationCompleted = true;
+            if (progress != null) {
+                progress.accept(new GameState(root.play(equalBestMoves.get(0))));
             }
-            if (score == bestScore) {
-                equalBestMoves.add(move);
+            sortByScore(possibleMoves, scores);
+            completedScore = scores[0];
+            if (clock != null && (!clock.canStartIteration() || Math.abs(scores[0]) > Searcher.WIN_BOUND)) {
+                break;
             }
         }
+        if (helpers != null) {
+            stopRunningSearch();
+            for (ForkJoinTask<?> helper : helpers) {
+                helper.join();
+            }
+        }
+
+        if (equalBestMoves == null) {
+            return 0;
+        }
 
+        statistics = new SearchStatistics(searchers(), completedScore, completedDepth,
+                (System.nanoTime() - startTime) / 1_000_000, threads);
+        metrics.record(statistics);
+        logger.info(player.toString() + " searched " + statistics);
         if (equalBestMoves.size() > 1) {
             logger.info(player.toString() + " choosing a random best move");
         }
@@ -55,7 +446,169 @@ public class ComputerEnemy {
         return selectRandomMove(equalBestMoves);
     }
 
-    private GameState selectRandomMove(ArrayList<GameState> moves) {
+    /**
+     * Starts Lazy SMP helper threads. Each helper runs its own iterative deepening over the root position and
+     * shares nothing with the other threads except the transposition table, which they fill for each other.
+     * Half of the helpers search one ply deeper than the main thread, so that the threads spread out over
+     * different depths instead of all searching the same nodes in the same order.
+     */
+    private ForkJoinTask<?>[] startHelpers(BitBoard root, int count) {
+        ForkJoinTask<?>[] helpers = new ForkJoinTask<?>[count];
+        for (int i = 0; i < count; i++) {
+            int firstDepth = Math.min(1 + (i + 1) % 2, searchDepth);
+            helpers[i] = threadPool.submit(() -> searchAsHelper(root, firstDepth));
+        }
+        return helpers;
+    }
+
+    private void searchAsHelper(BitBoard root, int firstDepth) {
+        SearchBoard board = new SearchBoard(root);
+        MoveList moves = new MoveList();
+        board.generateMoves(moves);
+        int[] scores = new int[moves.size()];
+        for (int depth = firstDepth; depth <= searchDepth && !isStopped(); depth++) {
+            if (searchRoot(board, moves, scores, depth, 1, depth > firstDepth) == null) {
+                return;
+            }
+            sortByScore(moves, scores);
+        }
+    }
+
+    /**
+     * Searches every root move to the given depth.
+     * <p>
+     * The best score so far is shared between root moves: each move is searched with an alpha bound just below
+     * it, so worse moves are refuted quickly while equally good moves still get their exact score and remain
+     * candidates for {@link #selectRandomMove(MoveList)}. With more than one thread the first (best ordered) move
+     * is searched alone to set the bound, then the others are searched in parallel.
+     *
+     * @param scores   scores of the root moves, from the previous iteration on entry
+     * @param deepened whether the root moves are ordered by a previous iteration, whose best score is then taken
+     *                 as the expected score of the first move
+     * @return moves sharing the best score, or null if the iteration was abandoned
+     */
+    private MoveList searchRoot(SearchBoard board, MoveList possibleMoves, int[] scores, int depth, int threads,
+                                boolean deepened) {
+        AtomicInteger bestScore = new AtomicInteger(-INFINITY);
+        Searcher local = currentSearcher();
+        if (deepened && Settings.ASPIRATION_WINDOW > 0 && Math.abs(scores[0]) < Searcher.WIN_BOUND) {
+            scores[0] = searchAspirated(local, board, possibleMoves.get(0), depth, scores[0]);
+            if (!isStopped()) {
+                bestScore.accumulateAndGet(scores[0], Math::max);
+            }
+        } else {
+            scores[0] = searchRootMove(local, board, possibleMoves.get(0), depth, bestScore);
+        }
+
+        if (threads == 1) {
+            for (int i = 1; i < possibleMoves.size() && !isStopped(); i++) {
+                scores[i] = searchRootMove(local, board, possibleMoves.get(i), depth, bestScore);
+            }
+        } else {
+            BitBoard root = board.toBitBoard();
+            ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[possibleMoves.size()];
+            for (int i = 1; i < possibleMoves.size(); i++) {
+                int index = i;
+                tasks[i] = threadPool.submit(() -> {
+                    scores[index] = searchRootMove(currentSearcher(), new SearchBoard(root), possibleMoves.get(index),
+                            depth, bestScore);
+                });
+            }
+            for (int i = 1; i < tasks.length; i++) {
+                tasks[i].join();
+            }
+        }
+        if (isStopped()) {
+            return null;
+        }
+
+        // root order, so the random choice among equal moves does not depend on thread timing
+        MoveList equalBestMoves = new MoveList();
+        for (int i = 0; i < possibleMoves.size(); i++) {
+            if (scores[i] == bestScore.get()) {
+                equalBestMoves.add(possibleMoves.get(i));
+            }
+        }
+        return equalBestMoves;
+    }
+
+    /**
+     * Searches a root move with an aspiration window around its expected score, widening the window and searching
+     * again until the score falls inside it.
+     */
+    private int searchAspirated(Searcher searcher, SearchBoard board, long move, int depth, int expected) {
+        int window = Evaluation.scale(Settings.ASPIRATION_WINDOW);
+        while (true) {
+            boolean full = window >= Searcher.WIN_BOUND;
+            int alpha = full ? -INFINITY : expected - window;
+            int beta = full ? INFINITY : expected + window;
+            board.makeMove(move);
+            int score = searcher.score(board, depth, alpha, beta, 1);
+            board.unmakeMove();
+            if (isStopped() || (score > alpha && score < beta)) {
+                return score;
+            }
+            searcher.researches++;
+            window *= 4;
+        }
+    }
+
+    private int searchRootMove(Searcher searcher, SearchBoard board, long move, int depth, AtomicInteger bestScore) {
+        int best = bestScore.get();
+        board.makeMove(move);
+        int score;
+        if (best == -INFINITY) {
+            score = searcher.score(board, depth, -INFINITY, INFINITY, 1);
+        } else if (searcher.isPvs()) {
+            score = searchRootMoveWithNullWindows(searcher, board, depth, best);
+        } else {
+            score = searcher.score(board, depth, best - 1, INFINITY, 1);
+        }
+        board.unmakeMove();
+        if (!isStopped()) {
+            bestScore.accumulateAndGet(score, Math::max);
+        }
+        return score;
+    }
+
+    /**
+     * Scores a root move after the first with null windows: the first one refutes a worse move, the second tells
+     * an equal move from a better one, and only a better move is searched again for its exact score.
+     */
+    private int searchRootMoveWithNullWindows(Searcher searcher, SearchBoard board, int depth, int best) {
+        int score = searcher.score(board, depth, best - 1, best, 1);
+        if (score < best || isStopped()) {
+            return score;
+        }
+        if (score == best) {
+            score = searcher.score(board, depth, best, best + 1, 1);
+            if (score <= best || isStopped()) {
+                return best;
+            }
+        }
+        searcher.researches++;
+        return searcher.score(board, depth, best, INFINITY, 1);
+    }
+
+    /**
+     * Orders root moves by the scores of the last iteration, best first (stable insertion sort).
+     */
+    private static void sortByScore(MoveList moves, int[] scores) {
+        for (int i = 1; i < moves.size(); i++) {
+            long move = moves.get(i);
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                moves.set(j + 1, moves.get(j));
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves.set(j + 1, move);
+            scores[j + 1] = score;
+        }
+    }
+
+    private long selectRandomMove(MoveList moves) {
         if (moves.isEmpty()) {
             throw new IllegalArgumentException("Cannot randomly choose from an empty list.");
         }
@@ -64,41 +617,31 @@ public class ComputerEnemy {
         return moves.get(randomIndex);
     }
 
-    private int minimax(GameState node, int depth) {
-        int alpha = Integer.MIN_VALUE;
-        int beta = Integer.MAX_VALUE;
-        return minimax(node, depth, alpha, beta);
-    }
+    /**
+     * Search thread of this ComputerEnemy's pool, with its own Searcher for as long as the thread lives.
+     */
+    private final class SearchThread extends ForkJoinWorkerThread {
+
+        private final Searcher searcher = new Searcher(ComputerEnemy.this, player, table);
 
-    private int minimax(GameState node, int depth, int alpha, int beta) {
-        if (depth == 0 || node.isGameOver()) {
-            return node.computeHeuristic(this.player);
+        SearchThread(ForkJoinPool pool) {
+            super(pool);
         }
 
-        if (node.getTurn() == player) {
-            int maxScore = Integer.MIN_VALUE;
-            for (GameState child : node.getSuccessors()) {
-                maxScore = Math.max(maxScore, minimax(child, depth - 1, alpha, beta));
-                alpha = Math.max(alpha, maxScore);
-                if (alpha >= beta) {
-                    break; // Prune
-                }
-            }
-            return maxScore;
+        ComputerEnemy engine() {
+            return ComputerEnemy.this;
         }
 
-        if (node.getTurn() == player.getOpposite()) {
-            int minScore = Integer.MAX_VALUE;
-            for (GameState child : node.getSuccessors()) {
-                minScore = Math.min(minScore, minimax(child, depth - 1, alpha, beta));
-                beta = Math.min(beta, minScore);
-                if (alpha >= beta) {
-                    break; // Prune
-                }
-            }
-            return minScore;
+        @Override
+        protected void onStart() {
+            super.onStart();
+            poolSearchers.add(searcher);
         }
 
-        throw new IllegalStateException("Error in minimax algorithm");
+        @Override
+        protected void onTermination(Throwable exception) {
+            poolSearchers.remove(searcher);
+            super.onTermination(exception);
+        }
     }
 }
@@ -0,0 +1,165 @@
+package org.davistiba.game;
+
+/**
+ * Piece-square evaluation, selected with {@link Settings#HEURISTIC} set to {@link #PIECE_SQUARE}.
+ * <p>
+ * Each piece is worth a value for its type and square, material included: men gain as they advance, guard the
+ * back rank or hold the centre, kings are worth more in the centre. A position is the sum over its pieces, which
+ * {@link SearchBoard} keeps up to date move by move. Only the tempo and runaway man terms depend on more than one
+ * piece; they are added when a leaf is scored, and the runaway term only costs a loop when men are close to
+ * promotion. Scores are in hundredths of a man.
+ */
+final class Evaluation {
+
+    // value of Settings.HEURISTIC selecting this evaluation
+    static final int PIECE_SQUARE = 3;
+    static final int MAN = 100;
+    static final int KING = 250;
+    // bonus of the side to move
+    static final int TEMPO = 5;
+
+    // men: bonus by rows advanced from the own back rank
+    private static final int[] ADVANCEMENT = {0, 1, 3, 5, 8, 12, 16, 21, 27, 0};
+    private static final int BACK_RANK = 10;
+    // men in the four middle columns, and on the side edges
+    private static final int CENTER = 6;
+    private static final int EDGE = -4;
+    // kings: bonus in the centre, less for each ring further out
+    private static final int KING_CENTER = 12;
+    private static final int KING_RING = 3;
+    // men this close to promotion are checked for a free run
+    private static final int RUNAWAY_ROWS = 3;
+    // runaway man one row from promotion, less for each further row
+    private static final int RUNAWAY = 150;
+    private static final int RUNAWAY_ROW = 20;
+
+    // values indexed by player ordinal, then bit
+    private static final int[][] MAN_VALUES = new int[2][BitBoard.NUM_BITS];
+    private static final int[][] KING_VALUES = new int[2][BitBoard.NUM_BITS];
+    // runaway man bonus and the squares that must be free of opponent pieces for it
+    private static final int[][] RUNAWAY_VALUES = new int[2][BitBoard.NUM_BITS];
+    private static final long[][] RUNAWAY_PATHS = new long[2][BitBoard.NUM_BITS];
+    private static final long[] RUNAWAY_ZONES = new long[2];
+
+    static {
+        int last = GameState.SIDE_LENGTH - 1;
+        for (StartPlayer player : StartPlayer.values()) {
+            int p = player.ordinal();
+            // AI men move down the board, human men up
+            int forward = player == StartPlayer.AI ? 1 : -1;
+            for (int bit = 0; bit < BitBoard.NUM_BITS; bit++) {
+                int square = BitBoard.toSquare(bit);
+                if (square < 0) {
+                    continue;
+                }
+                int x = square % GameState.SIDE_LENGTH;
+                int y = square / GameState.SIDE_LENGTH;
+                int advanced = player == StartPlayer.AI ? y : last - y;
+                int man = MAN + ADVANCEMENT[advanced];
+                if (advanced == 0) {
+                    man += BACK_RANK;
+                }
+                if (x >= 3 && x <= 6) {
+                    man += CENTER;
+                } else if (x == 0 || x == last) {
+                    man += EDGE;
+                }
+                MAN_VALUES[p][bit] = man;
+                int ring = Math.max(Math.abs(2 * x - last), Math.abs(2 * y - last)) / 2;
+                KING_VALUES[p][bit] = KING + KING_CENTER - KING_RING * ring;
+
+                int toGo = last - advanced;
+                if (toGo >= 1 && toGo <= RUNAWAY_ROWS) {
+                    RUNAWAY_ZONES[p] |= 1L << bit;
+                    RUNAWAY_VALUES[p][bit] = RUNAWAY - RUNAWAY_ROW * (toGo - 1);
+                    // every square an opponent piece could stop the man from, widening by a column per row
+                    for (int k = 1; k <= toGo; k++) {
+                        for (int dx = -k - 1; dx <= k + 1; dx++) {
+                            int bitAhead = x + dx >= 0 && x + dx <= last
+                                    ? BitBoard.toBit((y + forward * k) * GameState.SIDE_LENGTH + x + dx) : -1;
+                            if (bitAhead >= 0) {
+                                RUNAWAY_PATHS[p][bit] |= 1L << bitAhead;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    /**
+     * Gets the value of a piece on a square.
+     *
+     * @param side player ordinal
+     * @param king whether the piece is a king
+     * @param bit  bit of the square
+     * @return value, material included
+     */
+    static int value(int side, boolean king, int bit) {
+        return king ? KING_VALUES[side][bit] : MAN_VALUES[side][bit];
+    }
+
+    /**
+     * Sums the values of a player's pieces.
+     */
+    static int sum(int side, long men, long kings) {
+        int sum = 0;
+        for (long m = men; m != 0; m &= m - 1) {
+            sum += MAN_VALUES[side][Long.numberOfTrailingZeros(m)];
+        }
+        for (long k = kings; k != 0; k &= k - 1) {
+            sum += KING_VALUES[side][Long.numberOfTrailingZeros(k)];
+        }
+        return sum;
+    }
+
+    /**
+     * Bonus for men close to promotion with no opponent piece in their way.
+     *
+     * @param side      player ordinal
+     * @param men       men of the player
+     * @param opponents opponent pieces
+     * @return bonus
+     */
+    static int runaway(int side, long men, long opponents) {
+        int bonus = 0;
+        for (long m = men & RUNAWAY_ZONES[side]; m != 0; m &= m - 1) {
+            int bit = Long.numberOfTrailingZeros(m);
+            if ((RUNAWAY_PATHS[side][bit] & opponents) == 0) {
+                bonus += RUNAWAY_VALUES[side][bit];
+            }
+        }
+        return bonus;
+    }
+
+    /**
+     * Evaluates a position from scratch, as {@link SearchBoard#evaluate(StartPlayer)} does incrementally.
+     *
+     * @param board  position
+     * @param player player to score the position for
+     * @return score
+     */
+    static int evaluate(BitBoard board, StartPlayer player) {
+        int p = player.ordinal();
+        StartPlayer opponent = player.getOpposite();
+        int o = opponent.ordinal();
+        int score = sum(p, board.men(player), board.kings(player)) - sum(o, board.men(opponent), board.kings(opponent))
+                + runaway(p, board.men(player), board.pieces(opponent))
+                - runaway(o, board.men(opponent), board.pieces(player));
+        return board.turn == player ? score + TEMPO : score - TEMPO;
+    }
+
+    /**
+     * Converts a margin in hundredths of a man to the scale of the selected heuristic, which counts whole pieces
+     * unless it is this evaluation.
+     *
+     * @param hundredths margin in hundredths of a man
+     * @return margin, at least 1
+     */
+    static int scale(int hundredths) {
+        return Settings.HEURISTIC == PIECE_SQUARE ? hundredths : Math.max(1, hundredths / MAN);
+    }
+}
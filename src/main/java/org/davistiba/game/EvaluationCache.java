@@ -0,0 +1,81 @@
+package org.davistiba.game;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size cache of static evaluations, so that leaves reached again in later iterations or other subtrees are
+ * not evaluated twice.
+ * <p>
+ * Each slot is a single {@code long}: the high 32 bits of the position's Zobrist key, which the low bits already
+ * select the slot by, and the score in the low 32 bits. A new score always replaces the old one. Since key and
+ * score are written together, the cache is shared by the search threads without locking.
+ */
+public final class EvaluationCache {
+
+    // result of a lookup that found nothing
+    public static final int MISS = Integer.MIN_VALUE;
+
+    private static final long KEY_BITS = 0xFFFFFFFF00000000L;
+    private static final int ENTRY_BYTES = 8;
+
+    private final long[] slots;
+    private final int mask;
+    // heuristic the cached scores were computed with
+    private int heuristic;
+
+    /**
+     * Creates a cache using at most the given amount of memory.
+     *
+     * @param sizeInMb cache size in megabytes, rounded down to a power of two number of slots
+     */
+    public EvaluationCache(int sizeInMb) {
+        long slots = Math.max(1, (long) sizeInMb * 1024 * 1024 / ENTRY_BYTES);
+        int size = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+        this.slots = new long[size];
+        this.mask = size - 1;
+        this.heuristic = Settings.HEURISTIC;
+    }
+
+    /**
+     * Prepares for a search with the given heuristic, dropping the scores of any other.
+     */
+    public void newSearch(int heuristic) {
+        if (heuristic != this.heuristic) {
+            clear();
+            this.heuristic = heuristic;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0);
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key Zobrist key of the position
+     * @return cached score, or {@link #MISS}
+     */
+    public int probe(long key) {
+        long slot = slots[(int) key & mask];
+        // empty slots are zero; a zero score for a key with zero high bits is then lost too, which costs nothing
+        if (slot != 0 && (slot & KEY_BITS) == (key & KEY_BITS)) {
+            return (int) slot;
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores the score of a position, replacing whatever its slot held.
+     *
+     * @param key   Zobrist key of the position
+     * @param score static score
+     */
+    public void store(long key, int score) {
+        slots[(int) key & mask] = (key & KEY_BITS) | (score & 0xFFFFFFFFL);
+    }
+}
@@ -1,20 +1,31 @@
 package org.davistiba.game;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 
-public class Game {
+public class Game implements AutoCloseable {
 
     private final Stack<GameState> state;
     private final int memory;
     private final ComputerEnemy ai;
+    private final HintService hints;
+    private final OpeningBook book;
     private boolean playerWon;
 
     public Game() {
+        this(GameState.initialState());
+    }
+
+    Game(GameState start) {
         memory = Settings.UNDO_MEMORY;
         state = new Stack<>();
-        state.push(GameState.initialState());
+        state.push(start);
         ai = new ComputerEnemy();
+        hints = new HintService();
+        book = OpeningBook.forSettings();
     }
 
     public void playerMove(GameState newState) {
@@ -25,27 +36,28 @@ public class Game {
 
     public Messages playerMove(int fromPos, int dx, int dy) {
         int toPos = fromPos + dx + GameState.SIDE_LENGTH * dy;
-        if (toPos > getState().state.length) {
+        if (toPos >= GameState.NUM_SQUARES) {
             return Messages.NOT_ON_BOARD;
         }
         // check for forced jumped
-        ArrayList<GameState> jumpSuccessors = this.state.peek().getSuccessors(true);
-        boolean jumps = !jumpSuccessors.isEmpty();
-        if (jumps) {
-            for (GameState succ : jumpSuccessors) {
-                if (succ.getFromPos() == fromPos && succ.getToPos() == toPos) {
-                    updateState(succ);
-                    return Messages.SUCCESS;
-                }
+        if (!this.state.peek().getSuccessors(true).isEmpty()) {
+            List<GameState> jumps = getJumps(fromPos, toPos);
+            if (jumps.isEmpty()) {
+                return Messages.FORCED_JUMP;
             }
-            return Messages.FORCED_JUMP;
+            if (jumps.size() > 1) {
+                // the captures differ, so the player has to say which way to go
+                return Messages.AMBIGUOUS_JUMP;
+            }
+            updateState(jumps.get(0));
+            return Messages.SUCCESS;
         }
         // check diagonal
         if (Math.abs(dx) != Math.abs(dy)) {
             return Messages.NOT_DIAGONAL;
         }
         // check for move onto piece
-        if (this.getState().state[toPos] != null) {
+        if (this.getState().getPiece(toPos) != null) {
             return Messages.NO_FREE_SPACE;
         }
         // check for non-jump moves
@@ -75,18 +87,93 @@ public class Game {
 
     }
 
+    /**
+     * Gets the multi-jumps of the player to move between two squares. There can be several, taking different
+     * pieces along the way.
+     *
+     * @param fromPos square the piece starts on
+     * @param toPos   square the piece ends on
+     * @return states after each of the jumps
+     */
+    public List<GameState> getJumps(int fromPos, int toPos) {
+        List<GameState> result = new ArrayList<>();
+        for (GameState succ : this.state.peek().getSuccessors(true)) {
+            if (succ.getFromPos() == fromPos && succ.getToPos() == toPos) {
+                result.add(succ);
+            }
+        }
+        return result;
+    }
+
     public ArrayList<GameState> getValidMoves(int pos) {
         return state.peek().getSuccessors(pos);
     }
 
     public void aiMove() {
+        aiMove(findAiMove().join());
+    }
+
+    /**
+     * Starts searching for the ComputerEnemy's move on the engine thread. The game does not change until the
+     * result is passed to {@link #aiMove(GameState)}. Positions in the opening book are answered straight away
+     * with a book move.
+     *
+     * @return future of the position after the ComputerEnemy's move, completed with null if it is not the
+     * ComputerEnemy's turn
+     */
+    public CompletableFuture<GameState> findAiMove() {
+        if (isGameOver() || state.peek().getTurn() != StartPlayer.AI) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (book != null) {
+            GameState bookMove = book.choose(state.peek().getBoard(), ThreadLocalRandom.current());
+            if (bookMove != null) {
+                ai.stop();
+                return CompletableFuture.completedFuture(bookMove);
+            }
+        }
+        return ai.makeMoveAsync(state.peek(), StartPlayer.AI);
+    }
+
+    /**
+     * Plays a move found by {@link #findAiMove()}. Moves that no longer fit the game, e.g. after an undo, are
+     * ignored.
+     *
+     * @param newState position after the ComputerEnemy's move
+     */
+    public void aiMove(GameState newState) {
         // update state with ComputerEnemy move
-        if (!isGameOver() && state.peek().getTurn() == StartPlayer.AI) {
-            GameState newState = ai.makeMove(this.state.peek(), StartPlayer.AI);
+        if (newState != null && !isGameOver() && state.peek().getTurn() == StartPlayer.AI
+                && state.peek().getSuccessors().contains(newState)) {
             updateState(newState);
+            if (Settings.PONDER && !isGameOver() && newState.getTurn() == StartPlayer.HUMAN) {
+                ai.startPondering(newState);
+            }
         }
     }
 
+    /**
+     * Stops the ComputerEnemy's search, whether it is searching for its move or pondering on the player's time.
+     */
+    public void stopThinking() {
+        ai.stop();
+        hints.cancel();
+    }
+
+    /**
+     * Stops the ComputerEnemy and the hint engine for good and lets their threads end; call it when the game is
+     * replaced or the window closes.
+     */
+    @Override
+    public void close() {
+        ai.close();
+        hints.close();
+    }
+
+    public HintService getHints() {
+        return hints;
+    }
+
     private void updateState(GameState newState) {
         state.push(newState);
         if (state.size() > memory) {
@@ -107,7 +194,7 @@ public class Game {
         boolean isOver = state.peek().isGameOver();
         if (isOver) {
             // get win / lose status
-            playerWon = state.peek().pieceCount.get(StartPlayer.AI) == 0;
+            playerWon = state.peek().getPieceCount(StartPlayer.AI) == 0;
         }
         return isOver;
     }
@@ -123,6 +210,7 @@ public class Game {
     }
 
     public void undo() {
+        ai.stop();
         if (state.size() > 2) {
             state.pop();
             while (state.peek().getTurn() == StartPlayer.AI) {
@@ -1,69 +1,34 @@
 package org.davistiba.game;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Objects;
+import java.util.List;
 
 public class GameState {
 
     // side length of the board
     public static final int SIDE_LENGTH = 10;
     public static final int NUM_SQUARES = SIDE_LENGTH * SIDE_LENGTH; // 10 x 10
-    // state of the board
-    PieceLogic[] state;
-    // origin and destination position of the most recent move
-    private int fromPos = -1;
-    private int toPos = -1;
-    // origin position of double jump move, used to invalidate other moves during multi-move
-    private int doublejumpPos = -1;
-    // player's turn
-    private StartPlayer turn;
-    // track number of human/ComputerEnemy pieces on board
-    public HashMap<StartPlayer, Integer> pieceCount;
-    private HashMap<StartPlayer, Integer> kingCount;
+    // bitboard position backing this state
+    private final BitBoard board;
 
-    public GameState() {
-        state = new PieceLogic[GameState.NUM_SQUARES];
+    GameState(BitBoard board) {
+        this.board = board;
     }
 
     /**
      * Set up initial board state.
      */
     public static GameState initialState() {
-        GameState bs = new GameState();
-        bs.turn = Settings.FIRSTMOVE;
-        for (int i = 0; i < bs.state.length; i++) {
-            int y = i / SIDE_LENGTH;
-            int x = i % SIDE_LENGTH;
-            // place on black squares only
-            if ((x + y) % 2 == 1) {
-                // ComputerEnemy pieces in first 3 rows
-                if (y < 3) {
-                    bs.state[i] = new PieceLogic(StartPlayer.AI, false);
-                }
-                // Human pieces in last 3 rows
-                else if (y > 4) {
-                    bs.state[i] = new PieceLogic(StartPlayer.HUMAN, false);
-                }
-            }
-        }
-        // count initial pieces (generalizable, not hard-coded)
-        int aiCount = (int) Arrays.stream(bs.state).filter(Objects::nonNull).filter(x -> x.getPlayer() == StartPlayer.AI).count();
-        int humanCount = (int) Arrays.stream(bs.state).filter(Objects::nonNull).filter(x -> x.getPlayer() == StartPlayer.HUMAN).count();
-        bs.pieceCount = new HashMap<>();
-        bs.pieceCount.put(StartPlayer.AI, aiCount);
-        bs.pieceCount.put(StartPlayer.HUMAN, humanCount);
-        bs.kingCount = new HashMap<>();
-        bs.kingCount.put(StartPlayer.AI, 0);
-        bs.kingCount.put(StartPlayer.HUMAN, 0);
-        return bs;
+        return new GameState(BitBoard.initial(Settings.FIRSTMOVE));
     }
 
-    private GameState deepCopy() {
-        GameState bs = new GameState();
-        System.arraycopy(this.state, 0, bs.state, 0, bs.state.length);
-        return bs;
+    /**
+     * Gets the bitboard position behind this state.
+     *
+     * @return position
+     */
+    public BitBoard getBoard() {
+        return board;
     }
 
     /**
@@ -73,44 +38,68 @@ public class GameState {
      * @return level
      */
     public int computeHeuristic(StartPlayer player) {
+        if (Settings.HEURISTIC == Evaluation.PIECE_SQUARE) {
+            return Evaluation.evaluate(board, player);
+        }
+        StartPlayer opponent = player.getOpposite();
+        return computeHeuristic(board.pieceCount(player), board.kingCount(player),
+                board.pieceCount(opponent), board.kingCount(opponent));
+    }
+
+    /**
+     * Compute heuristic from piece counts, shared with the search board.
+     *
+     * @param pieces         pieces of the player
+     * @param kings          kings of the player
+     * @param opponentPieces pieces of the opponent
+     * @param opponentKings  kings of the opponent
+     * @return level
+     */
+    static int computeHeuristic(int pieces, int kings, int opponentPieces, int opponentKings) {
         switch (Settings.HEURISTIC) {
             case 1:
-                return heuristic1(player);
+                return heuristic1(pieces, kings, opponentPieces, opponentKings);
             case 2:
-                return heuristic2(player);
+                return heuristic2(pieces, kings, opponentPieces, opponentKings);
         }
         throw new RuntimeException("Invalid heuristic");
     }
 
-    private int heuristic1(StartPlayer player) {
+    private static int heuristic1(int pieces, int kings, int opponentPieces, int opponentKings) {
         // 'infinite' value for winning
-        if (this.pieceCount.get(player.getOpposite()) == 0) {
+        if (opponentPieces == 0) {
             return Integer.MAX_VALUE;
         }
         // 'negative infinite' for losing
-        if (this.pieceCount.get(player) == 0) {
+        if (pieces == 0) {
             return Integer.MIN_VALUE;
         }
         // difference between piece counts with kings counted twice
-        return pieceScore(player) - pieceScore(player.getOpposite());
+        return (pieces + kings) - (opponentPieces + opponentKings);
     }
 
 
-    private int heuristic2(StartPlayer player) {
+    private static int heuristic2(int pieces, int kings, int opponentPieces, int opponentKings) {
         // 'infinite' value for winning
-        if (this.pieceCount.get(player.getOpposite()) == 0) {
+        if (opponentPieces == 0) {
             return Integer.MAX_VALUE;
         }
         // 'negative infinite' for losing
-        else if (this.pieceCount.get(player) == 0) {
+        else if (pieces == 0) {
             return Integer.MIN_VALUE;
         } else {
-            return pieceScore(player) / pieceScore(player.getOpposite());
+            return (pieces + kings) / (opponentPieces + opponentKings);
         }
     }
 
-    private int pieceScore(StartPlayer player) {
-        return this.pieceCount.get(player) + this.kingCount.get(player);
+    /**
+     * Gets the number of pieces (men and kings) a player has on the board.
+     *
+     * @param player player to count
+     * @return piece count
+     */
+    public int getPieceCount(StartPlayer player) {
+        return board.pieceCount(player);
     }
 
 
@@ -120,21 +109,7 @@ public class GameState {
      * @return
      */
     public ArrayList<GameState> getSuccessors() {
-        // compute jump successors
-        ArrayList<GameState> successors = getSuccessors(true);
-        if (Settings.FORCETAKES) {
-            if (!successors.isEmpty()) {
-                // return only jump successors if available (forced)
-                return successors;
-            } else {
-                // return non-jump successors (since no jumps available)
-                return getSuccessors(false);
-            }
-        } else {
-            // return jump and non-jump successors
-            successors.addAll(getSuccessors(false));
-            return successors;
-        }
+        return wrap(board.successors());
     }
 
     /**
@@ -144,15 +119,7 @@ public class GameState {
      * @return list of allowable positions
      */
     public ArrayList<GameState> getSuccessors(boolean jump) {
-        ArrayList<GameState> result = new ArrayList<>();
-        for (int i = 0; i < this.state.length; i++) {
-            if (state[i] != null) {
-                if (state[i].getPlayer() == turn) {
-                    result.addAll(getSuccessors(i, jump));
-                }
-            }
-        }
-        return result;
+        return wrap(board.successors(BitBoard.VALID, jump));
     }
 
     /**
@@ -163,21 +130,12 @@ public class GameState {
      */
     public ArrayList<GameState> getSuccessors(int position) {
         if (Settings.FORCETAKES) {
-            // compute jump successors GLOBALLY
-            ArrayList<GameState> jumps = getSuccessors(true);
-            if (!jumps.isEmpty()) {
-                // return only jump successors if available (forced)
-                return getSuccessors(position, true);
-            } else {
-                // return non-jump successors (since no jumps available)
-                return getSuccessors(position, false);
-            }
+            // check for jumps GLOBALLY
+            // return only jump successors if available (forced), else non-jump successors
+            return getSuccessors(position, board.hasJump());
         } else {
-            // return jump and non-jump successors
-            ArrayList<GameState> result = new ArrayList<>();
-            result.addAll(getSuccessors(position, true));
-            result.addAll(getSuccessors(position, false));
-            return result;
+            // return jump and non-jump successors, generated together
+            return wrap(board.successors(pieceMask(position)));
         }
     }
 
@@ -189,136 +147,31 @@ public class GameState {
      * @return valid states
      */
     public ArrayList<GameState> getSuccessors(int position, boolean jump) {
-        if (this.getPiece(position).getPlayer() != turn) {
-            throw new IllegalArgumentException("No such piece at that position");
-        }
-        PieceLogic piece = this.state[position];
-        if (jump) {
-            return jumpSuccessors(piece, position);
-        } else {
-            return nonJumpSuccessors(piece, position);
-        }
-    }
-
-    /**
-     * Gets valid non-jump moves at a given position for a given piece
-     *
-     * @param piece current piece
-     * @param position target position
-     * @return list of valid states
-     */
-    private ArrayList<GameState> nonJumpSuccessors(PieceLogic piece, int position) {
-        ArrayList<GameState> result = new ArrayList<>();
-        int x = position % SIDE_LENGTH;
-        int y = position / SIDE_LENGTH;
-        // loop through allowed movement directions
-        for (int dx : piece.getValidMoveX()) {
-            for (int dy : piece.getValidMoveY()) {
-                int newX = x + dx;
-                int newY = y + dy;
-                // new position valid?
-                if (isValid(newY, newX)) {
-                    // new position available?
-                    if (getPiece(newY, newX) == null) {
-                        int newpos = SIDE_LENGTH * newY + newX;
-                        result.add(createNewState(position, newpos, piece, false, dy, dx));
-                    }
-                }
-            }
-        }
-        return result;
+        return wrap(board.successors(pieceMask(position), jump));
     }
 
-    /**
-     * Gets valid jump moves at a given position for a given piece
-     *
-     * @param piece current piece
-     * @param position target position
-     * @return list of valid states
-     */
-    private ArrayList<GameState> jumpSuccessors(PieceLogic piece, int position) {
-        ArrayList<GameState> result = new ArrayList<>();
-        // no other jump moves are valid while doing double jump
-        if (doublejumpPos > 0 && position != doublejumpPos) {
-            return result;
-        }
-        int x = position % SIDE_LENGTH;
-        int y = position / SIDE_LENGTH;
-        // loop through allowed movement directions
-        for (int dx : piece.getValidMoveX()) {
-            for (int dy : piece.getValidMoveY()) {
-                int newX = x + dx;
-                int newY = y + dy;
-                // new position valid?
-                if (isValid(newY, newX)) {
-                    // new position contain opposite player?
-                    if (getPiece(newY, newX) != null && getPiece(newY, newX).getPlayer() == piece.getPlayer().getOpposite()) {
-                        newX = newX + dx;
-                        newY = newY + dy;
-                        // jump position valid?
-                        if (isValid(newY, newX)) {
-                            // jump position available?
-                            if (getPiece(newY, newX) == null) {
-                                int newpos = SIDE_LENGTH * newY + newX;
-                                result.add(createNewState(position, newpos, piece, true, dy, dx));
-                            }
-                        }
-                    }
-                }
-            }
+    private long pieceMask(int position) {
+        if (this.getPiece(position).getPlayer() != board.getTurn()) {
+            throw new IllegalArgumentException("No such piece at that position");
         }
-        return result;
+        return 1L << BitBoard.toBit(position);
     }
 
-    private GameState createNewState(int oldPos, int newPos, PieceLogic piece, boolean jumped, int dy, int dx) {
-        GameState result = this.deepCopy();
-        result.pieceCount = new HashMap<>(pieceCount);
-        result.kingCount = new HashMap<>(kingCount);
-        // check if king position
-        boolean kingConversion = false;
-        if (isKingPosition(newPos, piece.getPlayer())) {
-            piece = new PieceLogic(piece.getPlayer(), true);
-            kingConversion = true;
-            // increase king count
-            result.kingCount.replace(piece.getPlayer(), result.kingCount.get(piece.getPlayer()) + 1);
-        }
-        // move piece
-        result.state[oldPos] = null;
-        result.state[newPos] = piece;
-        // store meta data
-        result.fromPos = oldPos;
-        result.toPos = newPos;
-        StartPlayer oppPlayer = piece.getPlayer().getOpposite();
-        result.turn = oppPlayer;
-        if (jumped) {
-            // remove captured piece
-            result.state[newPos - SIDE_LENGTH * dy - dx] = null;
-            result.pieceCount.replace(oppPlayer, result.pieceCount.get(oppPlayer) - 1);
-            // is another jump available? (not allowed if just converted into king)
-            if (!result.jumpSuccessors(piece, newPos).isEmpty() && !kingConversion) {
-                // don't swap turns
-                result.turn = piece.getPlayer();
-                // remember double jump position
-                result.doublejumpPos = newPos;
-            }
+    private static ArrayList<GameState> wrap(ArrayList<BitBoard> boards) {
+        ArrayList<GameState> result = new ArrayList<>(boards.size());
+        for (BitBoard b : boards) {
+            result.add(new GameState(b));
         }
         return result;
     }
 
-    private boolean isKingPosition(int pos, StartPlayer player) {
-        int y = pos / SIDE_LENGTH;
-        if (y == 0 && player == StartPlayer.HUMAN) {
-            return true;
-        } else return y == SIDE_LENGTH - 1 && player == StartPlayer.AI;
-    }
-
     /**
      * Gets the destination position of the most recent move.
      *
      * @return
      */
     public int getToPos() {
-        return this.toPos;
+        return board.move == 0 ? -1 : BitBoard.toSquare(Move.to(board.move));
     }
 
     /**
@@ -327,7 +180,22 @@ public class GameState {
      * @return
      */
     public int getFromPos() {
-        return this.fromPos;
+        return board.move == 0 ? -1 : BitBoard.toSquare(Move.from(board.move));
+    }
+
+    /**
+     * Gets the states after each hop of the move leading from this state to a successor, so that a multi-jump
+     * can be shown hop by hop. The successor is the last state; it is the only one for a non-jump move.
+     *
+     * @param successor state after one move from this state
+     * @return states after each hop
+     */
+    public List<GameState> getHops(GameState successor) {
+        List<GameState> result = new ArrayList<>();
+        for (BitBoard hop : board.hops(successor.board.move)) {
+            result.add(new GameState(hop));
+        }
+        return result;
     }
 
 
@@ -337,7 +205,7 @@ public class GameState {
      * @return
      */
     public StartPlayer getTurn() {
-        return turn;
+        return board.getTurn();
     }
 
     /**
@@ -346,7 +214,7 @@ public class GameState {
      * @return
      */
     public boolean isGameOver() {
-        return (pieceCount.get(StartPlayer.AI) == 0 || pieceCount.get(StartPlayer.HUMAN) == 0);
+        return board.isGameOver();
     }
 
     /**
@@ -356,29 +224,26 @@ public class GameState {
      * @return
      */
     public PieceLogic getPiece(int i) {
-        return state[i];
+        return board.getPiece(BitBoard.toBit(i));
     }
 
     /**
-     * Get piece by grid position
-     *
-     * @param y
-     * @param x
-     * @return
+     * Two states are equal if they hold the same position, whatever move led to it.
      */
-    private PieceLogic getPiece(int y, int x) {
-        return getPiece(SIDE_LENGTH * y + x);
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GameState)) {
+            return false;
+        }
+        return board.equals(((GameState) o).board);
     }
 
-    /**
-     * Check if grid indices are valid
-     *
-     * @param y
-     * @param x
-     * @return
-     */
-    private boolean isValid(int y, int x) {
-        return (0 <= y) && (y < SIDE_LENGTH) && (0 <= x) && (x < SIDE_LENGTH);
+    @Override
+    public int hashCode() {
+        return board.hashCode();
     }
 
 }
@@ -0,0 +1,108 @@
+package org.davistiba.game;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Suggests moves to the human player.
+ * <p>
+ * Hints are searched in the background by a single low priority engine thread. The engine has its own small
+ * transposition table and history table: it searches for the other player, whose scores need not be the negation
+ * of the AI's, and its searches must not age the AI's entries while the AI is pondering. The best move is
+ * published after every completed iteration, and finished hints are cached by position.
+ */
+public final class HintService implements AutoCloseable {
+
+    private static final int HINT_DEPTH = 10;
+    private static final int CACHE_SIZE = 64;
+    // largest transposition table of the hint engine
+    private static final int HASH_SIZE_MB = 4;
+
+    private final ComputerEnemy engine;
+    // finished hints by position, least recently used first
+    private final Map<BitBoard, GameState> cache = Collections.synchronizedMap(
+            new LinkedHashMap<BitBoard, GameState>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<BitBoard, GameState> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    // position being searched, the listener waiting for it and the best hint so far
+    private volatile BitBoard searching;
+    private volatile Consumer<GameState> listener;
+    private volatile GameState latest;
+
+    HintService() {
+        TranspositionTable table = Settings.HASH_SIZE_MB > 0
+                ? new TranspositionTable(Math.min(Settings.HASH_SIZE_MB, HASH_SIZE_MB)) : null;
+        this.engine = new ComputerEnemy(HINT_DEPTH, 0, StartPlayer.HUMAN, table, new HistoryTable(), 1,
+                Thread.MIN_PRIORITY);
+    }
+
+    /**
+     * Requests a hint for the human player. The listener is called, on the engine thread, every time the hint
+     * improves; for a position that has been searched before it is called once, straight away.
+     *
+     * @param state    position with the human player to move
+     * @param listener receives the position after the suggested move
+     */
+    public void requestHint(GameState state, Consumer<GameState> listener) {
+        if (state.isGameOver() || state.getTurn() != StartPlayer.HUMAN) {
+            return;
+        }
+        BitBoard position = state.getBoard();
+        GameState cached = cache.get(position);
+        if (cached != null) {
+            listener.accept(cached);
+            return;
+        }
+        this.listener = listener;
+        if (position.equals(searching)) {
+            GameState hint = latest;
+            if (hint != null) {
+                listener.accept(hint);
+            }
+            return;
+        }
+        searching = position;
+        latest = null;
+        engine.makeMoveAsync(state, StartPlayer.HUMAN, hint -> publish(position, hint))
+                .thenAccept(hint -> {
+                    // a search that was stopped only got part of the way
+                    if (position.equals(searching)) {
+                        cache.put(position, hint);
+                        publish(position, hint);
+                        searching = null;
+                    }
+                });
+    }
+
+    /**
+     * Stops searching for a hint; listeners are not called again.
+     */
+    public void cancel() {
+        searching = null;
+        listener = null;
+        engine.stop();
+    }
+
+    /**
+     * Stops searching and lets the engine's threads end. Later requests are rejected.
+     */
+    @Override
+    public void close() {
+        cancel();
+        engine.close();
+    }
+
+    private void publish(BitBoard position, GameState hint) {
+        Consumer<GameState> current = listener;
+        if (position.equals(searching) && current != null) {
+            latest = hint;
+            current.accept(hint);
+        }
+    }
+}
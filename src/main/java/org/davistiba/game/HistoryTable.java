@@ -0,0 +1,61 @@
+package org.davistiba.game;
+
+import java.util.Arrays;
+
+/**
+ * History (butterfly) table for move ordering: counts, per side and from/to square, how often a quiet move caused a
+ * cutoff, weighted by depth.
+ * <p>
+ * Each ComputerEnemy, the hint engine included, owns its table, which all of its search threads share. Updates
+ * are not synchronized; an update lost between threads only makes a count slightly less exact.
+ */
+final class HistoryTable {
+
+    // scores are halved when one reaches this value, so they stay below the killer scores
+    static final int LIMIT = 1 << 20;
+
+    private final int[][][] history = new int[2][BitBoard.NUM_BITS][BitBoard.NUM_BITS];
+
+    int score(StartPlayer side, long move) {
+        return history[side.ordinal()][Move.from(move)][Move.to(move)];
+    }
+
+    /**
+     * Records a quiet move that caused a beta cutoff.
+     *
+     * @param side  player who made the move
+     * @param move  cutoff move
+     * @param depth remaining depth of the node
+     */
+    void onCutoff(StartPlayer side, long move, int depth) {
+        int[] row = history[side.ordinal()][Move.from(move)];
+        row[Move.to(move)] += depth * depth;
+        if (row[Move.to(move)] >= LIMIT) {
+            age();
+        }
+    }
+
+    /**
+     * Halves all scores, so that recent cutoffs count more than old ones.
+     */
+    void age() {
+        for (int[][] side : history) {
+            for (int[] row : side) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets all scores.
+     */
+    void clear() {
+        for (int[][] side : history) {
+            for (int[] row : side) {
+                Arrays.fill(row, 0);
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.davistiba.game;
 public enum Messages {
     NOT_DIAGONAL("You can only move diagonally."),
     FORCED_JUMP("You're forced to take."),
+    AMBIGUOUS_JUMP("Several captures end there. Pick the square to jump through."),
     NO_FREE_SPACE("You can't move onto another piece."),
     ONLY_SINGLE_DIAGONALS("You can only make single moves."),
     NO_BACKWARD_MOVES_FOR_SINGLES("Only kings can move backwards!"),
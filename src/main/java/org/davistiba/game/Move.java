@@ -0,0 +1,111 @@
+package org.davistiba.game;
+
+/**
+ * Moves packed into a single {@code long}, so that the search can generate and store them without allocating.
+ * <p>
+ * A capture is a whole multi-jump: every hop of the sequence is part of the one move. Layout: bits 0-5 origin bit,
+ * bits 6-11 destination bit, bits 12-17 lowest captured bit ({@link #NONE} for a non-jump move), bit 18 set if a
+ * man is crowned by the move, bits 22-63 the captured pieces. A jumped piece always has a square on either side
+ * of it, so it is never on the board's edge; those bits lie between 6 and 47, and the mask is stored shifted
+ * down by 6.
+ * <p>
+ * The transposition table and the opening book store a 20-bit {@link #id(long)} instead: origin, destination, a
+ * jump flag and a 7-bit hash of the captured pieces. Multi-jumps by a man or a king that have the same origin and
+ * destination but take different pieces so get different ids unless their captures hash alike; an id shared by
+ * several legal moves is not resolved by {@link #find(MoveList, int)}.
+ */
+public final class Move {
+
+    // value of an empty captured field
+    static final int NONE = 0x3F;
+    private static final int CROWNED = 1 << 18;
+    // id layout: origin (bits 0-5), destination (bits 6-11), jump flag (bit 12), captures hash (bits 13-19)
+    private static final int ID_JUMP = 1 << 12;
+    private static final int ID_HASH_SHIFT = 13;
+    private static final long HASH_MULTIPLIER = 0x9E37_79B9_7F4A_7C15L;
+    private static final int CAPTURES_SHIFT = 22;
+    private static final int CAPTURES_OFFSET = 6;
+
+    private Move() {
+    }
+
+    /**
+     * Encodes a move.
+     *
+     * @param from     origin bit
+     * @param to       destination bit
+     * @param captures mask of the captured pieces, 0 for a non-jump move
+     * @param crowned  whether a man is crowned by the move
+     * @return encoded move
+     */
+    static long encode(int from, int to, long captures, boolean crowned) {
+        int lowest = captures == 0 ? NONE : Long.numberOfTrailingZeros(captures);
+        return from | (to << 6) | (lowest << 12) | (crowned ? CROWNED : 0)
+                | (captures >>> CAPTURES_OFFSET) << CAPTURES_SHIFT;
+    }
+
+    public static int from(long move) {
+        return (int) move & 0x3F;
+    }
+
+    public static int to(long move) {
+        return (int) (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * Gets the pieces captured by a move.
+     *
+     * @param move encoded move
+     * @return mask of the captured bits, 0 for a non-jump move
+     */
+    public static long captures(long move) {
+        return move >>> CAPTURES_SHIFT << CAPTURES_OFFSET;
+    }
+
+    public static boolean isJump(long move) {
+        return ((move >>> 12) & 0x3F) != NONE;
+    }
+
+    public static boolean isCrowning(long move) {
+        return (move & CROWNED) != 0;
+    }
+
+    /**
+     * Gets the short form of a move stored in tables and files.
+     *
+     * @param move encoded move
+     * @return id, never 0 for a legal move
+     */
+    public static int id(long move) {
+        int id = (int) move & 0xFFF;
+        long captures = captures(move);
+        if (captures != 0) {
+            id |= ID_JUMP | (int) (captures * HASH_MULTIPLIER >>> 57) << ID_HASH_SHIFT;
+        }
+        return id;
+    }
+
+    /**
+     * Finds the move with the given id in a list.
+     *
+     * @param moves legal moves
+     * @param id    id of the move
+     * @return move, or 0 if no move or more than one move has this id
+     */
+    static long find(MoveList moves, int id) {
+        long found = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            if (id(moves.get(i)) == id) {
+                if (found != 0) {
+                    return 0;
+                }
+                found = moves.get(i);
+            }
+        }
+        return found;
+    }
+
+    public static String toString(long move) {
+        return BitBoard.toSquare(from(move)) + (isJump(move) ? "x" : "-") + BitBoard.toSquare(to(move));
+    }
+}
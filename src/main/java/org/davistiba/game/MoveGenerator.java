@@ -0,0 +1,142 @@
+package org.davistiba.game;
+
+/**
+ * Bitboard move generation shared by {@link BitBoard} and {@link SearchBoard}.
+ * <p>
+ * All methods work on plain piece masks for the side to move, so they neither allocate nor depend on how the
+ * position is stored.
+ */
+final class MoveGenerator {
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Pieces that can capture, computed for all pieces at once with mask shifts.
+     *
+     * @param player    player owning the pieces
+     * @param men       men that may jump
+     * @param kings     kings that may jump
+     * @param opponents opponent pieces
+     * @param empty     empty squares
+     * @return mask of pieces with at least one jump
+     */
+    static long jumpers(StartPlayer player, long men, long kings, long opponents, long empty) {
+        long result = 0;
+        for (int d : BitBoard.manDirections(player)) {
+            result |= BitBoard.shift(BitBoard.shift(empty, -d) & opponents, -d) & men;
+        }
+        for (int d : BitBoard.KING_DIRECTIONS) {
+            result |= BitBoard.shift(BitBoard.shift(empty, -d) & opponents, -d) & kings;
+        }
+        return result;
+    }
+
+    /**
+     * Adds valid moves to a list, respecting forced takes.
+     *
+     * @param player    side to move
+     * @param men       men of the side to move
+     * @param kings     kings of the side to move
+     * @param opponents opponent pieces
+     * @param empty     empty squares
+     * @param out       list receiving the moves
+     */
+    static void generate(StartPlayer player, long men, long kings, long opponents, long empty, MoveList out) {
+        int before = out.size();
+        generate(player, men, kings, opponents, empty, true, out);
+        if (!Settings.FORCETAKES || out.size() == before) {
+            generate(player, men, kings, opponents, empty, false, out);
+        }
+    }
+
+    /**
+     * Adds valid jump or non-jump moves to a list. A jump move is a complete capture sequence: a piece that can
+     * jump again after a hop must, so only sequences that cannot be extended are added. A man that is crowned
+     * ends its sequence.
+     *
+     * @param player    side to move
+     * @param men       men of the side to move
+     * @param kings     kings of the side to move
+     * @param opponents opponent pieces
+     * @param empty     empty squares
+     * @param jump      must jump?
+     * @param out       list receiving the moves
+     */
+    static void generate(StartPlayer player, long men, long kings, long opponents, long empty, boolean jump,
+                         MoveList out) {
+        long promotionRow = BitBoard.promotionRow(player);
+        if (jump) {
+            int firstManDirection = BitBoard.firstManDirection(player);
+            for (long m = jumpers(player, men, 0, opponents, empty); m != 0; m &= m - 1) {
+                int from = Long.numberOfTrailingZeros(m);
+                addJumps(from, from, firstManDirection, firstManDirection + 2, opponents, empty | (1L << from),
+                        promotionRow, true, 0, out.size(), out);
+            }
+            for (long k = jumpers(player, 0, kings, opponents, empty); k != 0; k &= k - 1) {
+                int from = Long.numberOfTrailingZeros(k);
+                addJumps(from, from, 0, BitBoard.KING_DIRECTIONS.length, opponents, empty | (1L << from),
+                        promotionRow, false, 0, out.size(), out);
+            }
+        } else {
+            for (int d : BitBoard.manDirections(player)) {
+                addSteps(men, d, empty, promotionRow, out);
+            }
+            for (int d : BitBoard.KING_DIRECTIONS) {
+                addSteps(kings, d, empty, 0, out);
+            }
+        }
+    }
+
+    private static void addSteps(long movers, int d, long empty, long promotionRow, MoveList out) {
+        long targets = BitBoard.shift(movers, d) & empty;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            out.add(Move.encode(to - d, to, 0, (promotionRow & (1L << to)) != 0));
+        }
+    }
+
+    /**
+     * Follows the capture sequences of one piece depth first. Jumped pieces are taken off the board hop by hop, and
+     * the piece itself has left its origin, which it may land on again.
+     *
+     * @param from           origin of the piece
+     * @param at             square reached so far
+     * @param firstDirection first index into {@link BitBoard#KING_DIRECTIONS} the piece may jump in
+     * @param lastDirection  index after the last direction
+     * @param promotionRow   squares that end the sequence
+     * @param man            is the piece a man, crowned where the sequence ends on the promotion row?
+     * @param captures       pieces captured so far
+     * @param first          index of the piece's first sequence in the list; sequences that take the same pieces
+     *                       by another path end in the same position and are only added once
+     */
+    private static void addJumps(int from, int at, int firstDirection, int lastDirection, long opponents, long empty,
+                                 long promotionRow, boolean man, long captures, int first, MoveList out) {
+        boolean extended = false;
+        for (int i = at * 4 + firstDirection; i < at * 4 + lastDirection; i++) {
+            long over = BitBoard.JUMP_OVER[i];
+            long toMask = BitBoard.JUMP_LANDING[i];
+            if ((opponents & over) == 0 || (empty & toMask) == 0) {
+                continue;
+            }
+            extended = true;
+            int to = Long.numberOfTrailingZeros(toMask);
+            if ((promotionRow & toMask) != 0) {
+                addOnce(Move.encode(from, to, captures | over, man), first, out);
+            } else {
+                addJumps(from, to, firstDirection, lastDirection, opponents & ~over, empty | over, promotionRow, man,
+                        captures | over, first, out);
+            }
+        }
+        if (!extended) {
+            addOnce(Move.encode(from, at, captures, false), first, out);
+        }
+    }
+
+    private static void addOnce(long move, int first, MoveList out) {
+        if (out.indexOf(move, first) < 0) {
+            out.add(move);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.davistiba.game;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of encoded moves backed by a primitive array.
+ */
+public final class MoveList {
+
+    private long[] moves;
+    private int size;
+
+    public MoveList() {
+        this(32);
+    }
+
+    public MoveList(int capacity) {
+        moves = new long[capacity];
+    }
+
+    public void add(long move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public long get(int i) {
+        return moves[i];
+    }
+
+    public void set(int i, long move) {
+        moves[i] = move;
+    }
+
+    public boolean contains(long move) {
+        return indexOf(move, 0) >= 0;
+    }
+
+    /**
+     * Finds a move from a given index on.
+     *
+     * @param move  encoded move
+     * @param start first index to look at
+     * @return index of the move, or -1 if it is not in the list
+     */
+    int indexOf(long move, int start) {
+        for (int i = start; i < size; i++) {
+            if (moves[i] == move) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,120 @@
+package org.davistiba.game;
+
+import java.util.Arrays;
+
+/**
+ * Orders moves so that alpha-beta pruning happens as early as possible.
+ * <p>
+ * Moves are tried in this order: the move stored in the transposition table, captures by material gained, the
+ * killer moves of the current ply, and finally quiet moves by their {@link HistoryTable} score. Killer moves are
+ * quiet moves that caused a cutoff in a sibling node; they survive between iterations of the same search. The
+ * history table is shared with the other search threads.
+ */
+final class MoveOrdering {
+
+    static final int MAX_PLY = 128;
+    private static final int KILLERS_PER_PLY = 2;
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 29;
+    private static final int KILLER_SCORE = 1 << 28;
+
+    private final long[][] killers = new long[MAX_PLY][KILLERS_PER_PLY];
+    private final HistoryTable history;
+    // score buffers per ply, reused between nodes
+    private final int[][] scores = new int[MAX_PLY][64];
+
+    MoveOrdering(HistoryTable history) {
+        this.history = history;
+    }
+
+    /**
+     * Prepares for a new search: killers are forgotten.
+     */
+    void newSearch() {
+        for (long[] plyKillers : killers) {
+            Arrays.fill(plyKillers, 0);
+        }
+    }
+
+    /**
+     * Sorts moves in place, best candidates first.
+     *
+     * @param moves    moves of the side to move
+     * @param hashMove id of the move from the transposition table, 0 if none
+     * @param ply      distance from the root
+     * @param board    current position
+     */
+    void order(MoveList moves, int hashMove, int ply, SearchBoard board) {
+        int size = moves.size();
+        int[] moveScores = buffer(ply, size);
+        StartPlayer side = board.getTurn();
+        long[] plyKillers = killers[Math.min(ply, MAX_PLY - 1)];
+        for (int i = 0; i < size; i++) {
+            long move = moves.get(i);
+            int score;
+            if (Move.id(move) == hashMove) {
+                score = HASH_MOVE_SCORE;
+            } else if (Move.isJump(move)) {
+                score = CAPTURE_SCORE + materialGain(move, board);
+            } else if (move == plyKillers[0]) {
+                score = KILLER_SCORE + 1;
+            } else if (move == plyKillers[1]) {
+                score = KILLER_SCORE;
+            } else {
+                score = history.score(side, move);
+            }
+            moveScores[i] = score;
+        }
+        // insertion sort: lists are short and often nearly sorted
+        for (int i = 1; i < size; i++) {
+            long move = moves.get(i);
+            int score = moveScores[i];
+            int j = i - 1;
+            while (j >= 0 && moveScores[j] < score) {
+                moves.set(j + 1, moves.get(j));
+                moveScores[j + 1] = moveScores[j];
+                j--;
+            }
+            moves.set(j + 1, move);
+            moveScores[j + 1] = score;
+        }
+    }
+
+    /**
+     * Records a move that caused a beta cutoff.
+     *
+     * @param move  cutoff move
+     * @param ply   distance from the root
+     * @param depth remaining depth of the node
+     * @param side  player who made the move
+     */
+    void onCutoff(long move, int ply, int depth, StartPlayer side) {
+        if (Move.isJump(move)) {
+            return;
+        }
+        long[] plyKillers = killers[Math.min(ply, MAX_PLY - 1)];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        history.onCutoff(side, move, depth);
+    }
+
+    /**
+     * Material won by a capture: a king counts twice, like in the heuristics, and crowning wins a king.
+     */
+    private static int materialGain(long move, SearchBoard board) {
+        long captures = Move.captures(move);
+        int gain = Long.bitCount(captures) + Long.bitCount(captures & board.kings(board.getTurn().getOpposite()));
+        return Move.isCrowning(move) ? gain + 1 : gain;
+    }
+
+    private int[] buffer(int ply, int size) {
+        int index = Math.min(ply, MAX_PLY - 1);
+        if (scores[index].length < size) {
+            scores[index] = new int[Math.max(size, scores[index].length * 2)];
+        }
+        return scores[index];
+    }
+}
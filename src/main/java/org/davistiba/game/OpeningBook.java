@@ -0,0 +1,230 @@
+package org.davistiba.game;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Opening moves read from a book file, as written by {@link OpeningBookBuilder}.
+ * <p>
+ * The file starts with a magic number and the number of entries, followed by fixed-size entries sorted by the
+ * Zobrist key of the position: key (8 bytes), move id (4 bytes), weight (2 bytes) and score (2 bytes). A position
+ * has one entry per book move, next to each other. The file is memory-mapped and searched in place with a
+ * binary search, so looking up a position reads a few entries and allocates nothing until a move is chosen.
+ */
+public final class OpeningBook {
+
+    static final int MAGIC = 0x44424B31; // "DBK1"
+    static final int HEADER_SIZE = 8;
+    static final int ENTRY_SIZE = 16;
+
+    private static String loadedFile;
+    private static OpeningBook loaded;
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+
+    private OpeningBook(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.size = buffer.getInt(4);
+    }
+
+    /**
+     * One book move.
+     */
+    public static final class Entry {
+
+        final long key;
+        final int move;
+        final int weight;
+        final int score;
+
+        /**
+         * @param key    Zobrist key of the position
+         * @param move   encoded move, of which the {@link Move#id(long) id} is stored
+         * @param weight how often the move was played, at most {@link Short#MAX_VALUE}
+         * @param score  search score for the player to move, clamped to the range of a short
+         */
+        public Entry(long key, long move, int weight, int score) {
+            this(Move.id(move), key, weight, score);
+        }
+
+        private Entry(int id, long key, int weight, int score) {
+            this.key = key;
+            this.move = id;
+            this.weight = Math.min(weight, Short.MAX_VALUE);
+            this.score = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, score));
+        }
+
+        /**
+         * Creates an entry from a move id, e.g. one read from another entry.
+         */
+        static Entry ofId(long key, int id, int weight, int score) {
+            return new Entry(id, key, weight, score);
+        }
+
+        public int getMove() {
+            return move;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public int getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Gets the book configured in {@link Settings#OPENING_BOOK}, loading it on first use.
+     *
+     * @return book, or null if disabled or missing
+     */
+    static synchronized OpeningBook forSettings() {
+        String file = Settings.OPENING_BOOK;
+        if (file == null) {
+            return null;
+        }
+        if (!file.equals(loadedFile)) {
+            loadedFile = file;
+            Path path = Paths.get(file);
+            loaded = Files.isRegularFile(path) ? open(path) : null;
+        }
+        return loaded;
+    }
+
+    /**
+     * Maps a book file.
+     *
+     * @param file book file
+     * @return book
+     */
+    public static OpeningBook open(Path file) {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map opening book " + file, e);
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+                || buffer.capacity() != HEADER_SIZE + (long) buffer.getInt(4) * ENTRY_SIZE) {
+            throw new IllegalArgumentException(file + " is not an opening book");
+        }
+        return new OpeningBook(buffer);
+    }
+
+    /**
+     * Writes a book file.
+     *
+     * @param file    book file
+     * @param entries book moves, in any order
+     */
+    public static void write(Path file, List<Entry> entries) {
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        // by key, then most played first
+        Arrays.sort(sorted, Comparator.<Entry>comparingLong(e -> e.key).thenComparingInt(e -> -e.weight));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(sorted.length);
+            for (Entry e : sorted) {
+                out.writeLong(e.key);
+                out.writeInt(e.move);
+                out.writeShort(e.weight);
+                out.writeShort(e.score);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write opening book " + file, e);
+        }
+    }
+
+    /**
+     * Number of book moves.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Is the position in the book?
+     */
+    public boolean contains(BitBoard position) {
+        return first(position.getKey()) >= 0;
+    }
+
+    /**
+     * Chooses a book move at random, in proportion to how often each move was played.
+     *
+     * @param position position with the player to move
+     * @param random   source of randomness
+     * @return position after the book move, or null if the position is out of book
+     */
+    public GameState choose(BitBoard position, Random random) {
+        long key = position.getKey();
+        int first = first(key);
+        if (first < 0) {
+            return null;
+        }
+        int end = first;
+        int total = 0;
+        while (end < size && keyAt(end) == key) {
+            total += weightAt(end);
+            end++;
+        }
+        int pick = random.nextInt(total);
+        for (int i = first; i < end; i++) {
+            pick -= weightAt(i);
+            if (pick < 0) {
+                int id = buffer.getInt(offset(i) + 8);
+                // keys can collide, so only moves that are legal here are played
+                MoveList moves = new MoveList();
+                new SearchBoard(position).generateMoves(moves);
+                long move = Move.find(moves, id);
+                return move != 0 ? new GameState(position.play(move)) : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the first entry of a position.
+     *
+     * @return entry index, or -1 if the position is out of book
+     */
+    private int first(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keyAt(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < size && keyAt(low) == key ? low : -1;
+    }
+
+    private static int offset(int index) {
+        return HEADER_SIZE + index * ENTRY_SIZE;
+    }
+
+    private long keyAt(int index) {
+        return buffer.getLong(offset(index));
+    }
+
+    private int weightAt(int index) {
+        return buffer.getShort(offset(index) + 12);
+    }
+}
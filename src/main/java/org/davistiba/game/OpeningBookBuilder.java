@@ -0,0 +1,129 @@
+package org.davistiba.game;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Builds an {@link OpeningBook} from ComputerEnemy self-play.
+ * <p>
+ * Games are played in parallel, each by its own pair of single-threaded ComputerEnemy instances. The first plies
+ * of every game are random, so that the games spread over different openings, and half of the games start with
+ * each player. Every searched move of the following plies is recorded; the book weight of a move is how often it
+ * was played and its score is the average search score.
+ */
+public final class OpeningBookBuilder {
+
+    private static final Logger logger = Logger.getLogger(String.valueOf(OpeningBookBuilder.class));
+
+    private final int plies;
+    private final int randomPlies;
+    private final int searchDepth;
+
+    /**
+     * @param plies       number of plies recorded per game
+     * @param randomPlies number of random plies at the start of each game
+     * @param searchDepth search depth of the self-play moves
+     */
+    public OpeningBookBuilder(int plies, int randomPlies, int searchDepth) {
+        this.plies = plies;
+        this.randomPlies = randomPlies;
+        this.searchDepth = searchDepth;
+    }
+
+    /**
+     * Builds a book file.
+     *
+     * @param args book file (default {@link Settings#OPENING_BOOK}), number of games (default 1000), plies per
+     *             game (default 14), random plies (default 2) and search depth (default {@link Settings#AI_DEPTH})
+     */
+    public static void main(String[] args) {
+        Path file = Paths.get(args.length > 0 ? args[0] : Settings.OPENING_BOOK);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : 14;
+        int randomPlies = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int depth = args.length > 4 ? Integer.parseInt(args[4]) : Settings.AI_DEPTH;
+        new OpeningBookBuilder(plies, randomPlies, depth).build(file, games, 0);
+    }
+
+    /**
+     * Plays self-play games in parallel and writes the book.
+     *
+     * @param file  book file
+     * @param games number of games
+     * @param seed  seed of the random opening plies; game i uses seed + i
+     * @return number of book moves written
+     */
+    public int build(Path file, int games, long seed) {
+        long start = System.nanoTime();
+        List<OpeningBook.Entry> played = IntStream.range(0, games).parallel()
+                .mapToObj(i -> playGame(seed + i, i % 2 == 0 ? StartPlayer.AI : StartPlayer.HUMAN))
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+
+        // total weight and score by position and move
+        Map<Long, Map<Integer, long[]>> moves = new HashMap<>();
+        for (OpeningBook.Entry e : played) {
+            long[] totals = moves.computeIfAbsent(e.key, k -> new HashMap<>())
+                    .computeIfAbsent(e.move, k -> new long[2]);
+            totals[0]++;
+            totals[1] += e.score;
+        }
+        List<OpeningBook.Entry> entries = new ArrayList<>();
+        moves.forEach((key, byMove) -> byMove.forEach((move, totals) ->
+                entries.add(OpeningBook.Entry.ofId(key, move, (int) totals[0], (int) (totals[1] / totals[0])))));
+        OpeningBook.write(file, entries);
+        logger.info(String.format("Wrote %d book moves for %d positions from %d games in %d ms", entries.size(),
+                moves.size(), games, (System.nanoTime() - start) / 1_000_000));
+        return entries.size();
+    }
+
+    private List<OpeningBook.Entry> playGame(long seed, StartPlayer firstMove) {
+        Random random = new Random(seed);
+        List<OpeningBook.Entry> played = new ArrayList<>();
+        // closed after the game, so that a long build does not pile up idle engine threads and their tables
+        try (ComputerEnemy ai = newEngine(StartPlayer.AI); ComputerEnemy human = newEngine(StartPlayer.HUMAN)) {
+            GameState state = new GameState(BitBoard.initial(firstMove));
+            for (int ply = 0; ply < randomPlies + plies && !state.isGameOver(); ply++) {
+                ArrayList<GameState> successors = state.getSuccessors();
+                if (ply < randomPlies) {
+                    state = successors.get(random.nextInt(successors.size()));
+                    continue;
+                }
+                StartPlayer turn = state.getTurn();
+                ComputerEnemy engine = turn == StartPlayer.AI ? ai : human;
+                GameState next = engine.makeMove(state, turn);
+                // forced moves are played without a search and need no book entry
+                if (successors.size() > 1) {
+                    played.add(new OpeningBook.Entry(state.getBoard().getKey(), moveBetween(state.getBoard(),
+                            next.getBoard()), 1, engine.getStatistics().getScore()));
+                }
+                state = next;
+            }
+        }
+        return played;
+    }
+
+    private ComputerEnemy newEngine(StartPlayer player) {
+        return new ComputerEnemy(searchDepth, 0, player, new TranspositionTable(1), new HistoryTable(), 1,
+                Thread.NORM_PRIORITY);
+    }
+
+    private static long moveBetween(BitBoard position, BitBoard next) {
+        MoveList moves = new MoveList();
+        new SearchBoard(position).generateMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (position.play(moves.get(i)).equals(next)) {
+                return moves.get(i);
+            }
+        }
+        throw new IllegalStateException("No move leads to the searched position");
+    }
+}
@@ -0,0 +1,374 @@
+package org.davistiba.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the move tree to a fixed depth ("perft"), as a correctness check for move generation.
+ * <p>
+ * The tree is built with {@link GameState#getSuccessors()}. A multi-jump is one move, and sequences that take the
+ * same pieces by different paths end in the same position and count once. Subtrees close to the root
+ * are counted in parallel on a fork-join pool, and subtree counts can be cached by position key, so that
+ * transpositions are only counted once.
+ * <p>
+ * Positions are written as 10 rows of 10 squares from the top of the board, separated by '/', followed by the
+ * player to move: 'a' and 'A' are ComputerEnemy men and kings, 'h' and 'H' human men and kings, and '.' is an
+ * empty square. The first of the {@link #REFERENCES} is the initial position with the ComputerEnemy to move.
+ */
+public final class Perft {
+
+    // smallest depth at which subtrees are counted in parallel
+    private static final int SPLIT_DEPTH = 3;
+
+    /**
+     * Reference positions and their leaf counts with forced takes.
+     */
+    static final Reference[] REFERENCES = {
+            new Reference(".a.a.a.a.a/a.a.a.a.a./.a.a.a.a.a/........../........../h.h.h.h.h./.h.h.h.h.h/"
+                    + "h.h.h.h.h./.h.h.h.h.h/h.h.h.h.h. a", 8, 5_938_477L),
+            new Reference(".a.a.a.a.a/a.a.a.a.a./.a.a.a.a.a/........../........../h.h.h.h.h./.h.h.h.h.h/"
+                    + "h.h.h.h.h./.h.h.h.h.h/h.h.h.h.h. h", 8, 6_030_415L),
+            // multi-jumps of different lengths, and a capture that crowns
+            new Reference("........../....a...../.h.h....../........../.h.h....../........../...h....../"
+                    + "a.......h./.h......../.......... a", 7, 10_409L),
+            // kings only
+            new Reference("........../....A...../........../..H......./........../......A.../........../"
+                    + "........../...H....../.......... h", 8, 5_258_443L),
+    };
+
+    private final Cache cache;
+
+    /**
+     * @param cacheSizeInMb size of the subtree count cache, 0 for no cache
+     */
+    public Perft(int cacheSizeInMb) {
+        this.cache = cacheSizeInMb > 0 ? new Cache(cacheSizeInMb) : null;
+    }
+
+    /**
+     * Counts perft from the command line.
+     *
+     * @param args [-divide] [-hash MB] [-threads N] depth [position], or -check to verify the reference positions
+     */
+    public static void main(String[] args) {
+        boolean divide = false;
+        int cacheSizeInMb = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("-"); i++) {
+            switch (args[i]) {
+                case "-divide":
+                    divide = true;
+                    break;
+                case "-hash":
+                    cacheSizeInMb = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-check":
+                    long[] counts = new Perft(cacheSizeInMb).countReferences(new ForkJoinPool(threads));
+                    boolean passed = true;
+                    for (int r = 0; r < REFERENCES.length; r++) {
+                        Reference reference = REFERENCES[r];
+                        boolean matches = counts[r] == reference.count;
+                        System.out.printf("%s perft(%d) = %d, expected %d: %s%n", matches ? "OK  " : "FAIL",
+                                reference.depth, counts[r], reference.count, reference.position);
+                        passed &= matches;
+                    }
+                    System.exit(passed ? 0 : 1);
+                    return;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (i >= args.length) {
+            System.err.println("usage: Perft [-divide] [-hash MB] [-threads N] depth [position] | -check");
+            System.exit(2);
+        }
+        int depth = Integer.parseInt(args[i]);
+        GameState position = i + 1 < args.length ? parse(args[i + 1]) : GameState.initialState();
+        Perft perft = new Perft(cacheSizeInMb);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        long total;
+        if (divide) {
+            total = 0;
+            for (Division d : perft.divide(position, depth, pool)) {
+                System.out.println(d);
+                total += d.getCount();
+            }
+        } else {
+            total = perft.count(position, depth, pool);
+        }
+        long timeMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("perft(%d) = %d in %d ms (%d nodes/s)%n", depth, total, timeMs,
+                total * 1000 / Math.max(1, timeMs));
+    }
+
+    /**
+     * Leaf count below one root move.
+     */
+    public static final class Division {
+
+        private final String move;
+        private final GameState position;
+        private final long count;
+
+        Division(String move, GameState position, long count) {
+            this.move = move;
+            this.position = position;
+            this.count = count;
+        }
+
+        /**
+         * Move in standard notation: squares numbered 1 to 50, '-' for a quiet move and 'x' between captures.
+         */
+        public String getMove() {
+            return move;
+        }
+
+        /**
+         * Position after the move.
+         */
+        public GameState getPosition() {
+            return position;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return move + ": " + count;
+        }
+    }
+
+    /**
+     * Counts the leaf nodes to a depth on the calling thread.
+     *
+     * @param position root position
+     * @param depth    depth in moves, a multi-jump being one move
+     * @return number of leaves
+     */
+    public long count(GameState position, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long key = position.getBoard().getKey();
+        if (cache != null && depth > 1) {
+            long cached = cache.probe(key, depth);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
+        List<GameState> moves = position.getSuccessors();
+        long count;
+        if (depth == 1) {
+            // bulk counting: the leaves are the moves
+            count = moves.size();
+        } else {
+            count = 0;
+            for (GameState next : moves) {
+                count += count(next, depth - 1);
+            }
+        }
+        if (cache != null && depth > 1) {
+            cache.store(key, depth, count);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the leaf nodes to a depth, with the subtrees close to the root counted in parallel.
+     *
+     * @param pool threads to count on
+     * @return number of leaves
+     */
+    public long count(GameState position, int depth, ForkJoinPool pool) {
+        return pool.invoke(new CountTask(this, position, depth));
+    }
+
+    /**
+     * Counts the leaf nodes below each root move, in parallel.
+     *
+     * @return leaf counts in root move order
+     */
+    public List<Division> divide(GameState position, int depth, ForkJoinPool pool) {
+        List<GameState> moves = position.getSuccessors();
+        List<CountTask> tasks = new ArrayList<>();
+        for (GameState next : moves) {
+            tasks.add(new CountTask(this, next, Math.max(0, depth - 1)));
+        }
+        return pool.invoke(new RecursiveTask<List<Division>>() {
+            @Override
+            protected List<Division> compute() {
+                invokeAll(tasks);
+                List<Division> result = new ArrayList<>();
+                for (int i = 0; i < tasks.size(); i++) {
+                    result.add(new Division(notation(position, moves.get(i)), moves.get(i), tasks.get(i).join()));
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Counts the reference positions to their reference depths.
+     *
+     * @return leaf counts in {@link #REFERENCES} order
+     */
+    public long[] countReferences(ForkJoinPool pool) {
+        if (!Settings.FORCETAKES) {
+            throw new IllegalStateException("Reference counts are for forced takes");
+        }
+        long[] counts = new long[REFERENCES.length];
+        for (int i = 0; i < REFERENCES.length; i++) {
+            counts[i] = count(parse(REFERENCES[i].position), REFERENCES[i].depth, pool);
+        }
+        return counts;
+    }
+
+    // the squares of a move, with every landing square of a multi-jump
+    private static String notation(GameState position, GameState next) {
+        StringBuilder move = new StringBuilder().append(number(next.getFromPos()));
+        boolean jump = Move.isJump(next.getBoard().getMove());
+        for (GameState hop : position.getHops(next)) {
+            move.append(jump ? "x" : "-").append(number(hop.getToPos()));
+        }
+        return move.toString();
+    }
+
+    // standard draughts numbering of the dark squares, 1 to 50 from the top left
+    private static int number(int square) {
+        return square / 2 + 1;
+    }
+
+    /**
+     * Reads a position in the notation described above.
+     *
+     * @param text position
+     * @return position
+     */
+    public static GameState parse(String text) {
+        String[] parts = text.trim().split("\\s+");
+        String[] rows = parts[0].split("/");
+        if (parts.length != 2 || rows.length != GameState.SIDE_LENGTH) {
+            throw new IllegalArgumentException("Expected 10 rows and the player to move: " + text);
+        }
+        long[] masks = new long[4];
+        String pieces = "ahAH";
+        for (int y = 0; y < rows.length; y++) {
+            if (rows[y].length() != GameState.SIDE_LENGTH) {
+                throw new IllegalArgumentException("Expected 10 squares in row " + (y + 1) + ": " + text);
+            }
+            for (int x = 0; x < GameState.SIDE_LENGTH; x++) {
+                char c = rows[y].charAt(x);
+                if (c == '.') {
+                    continue;
+                }
+                int bit = BitBoard.toBit(y * GameState.SIDE_LENGTH + x);
+                if (pieces.indexOf(c) < 0 || bit < 0) {
+                    throw new IllegalArgumentException("Unexpected '" + c + "' in row " + (y + 1) + ": " + text);
+                }
+                masks[pieces.indexOf(c)] |= 1L << bit;
+            }
+        }
+        StartPlayer turn;
+        if (parts[1].equals("a")) {
+            turn = StartPlayer.AI;
+        } else if (parts[1].equals("h")) {
+            turn = StartPlayer.HUMAN;
+        } else {
+            throw new IllegalArgumentException("Expected 'a' or 'h' to move: " + text);
+        }
+        return new GameState(BitBoard.of(masks[0], masks[2], masks[1], masks[3], turn));
+    }
+
+    static final class Reference {
+
+        final String position;
+        final int depth;
+        final long count;
+
+        Reference(String position, int depth, long count) {
+            this.position = position;
+            this.depth = depth;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Counts a subtree, forking the subtrees of its moves while they are deep enough to be worth a task.
+     */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private static final class CountTask extends RecursiveTask<Long> {
+
+        private final Perft perft;
+        private final GameState position;
+        private final int depth;
+
+        CountTask(Perft perft, GameState position, int depth) {
+            this.perft = perft;
+            this.position = position;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth < SPLIT_DEPTH) {
+                return perft.count(position, depth);
+            }
+            List<CountTask> tasks = new ArrayList<>();
+            for (GameState next : position.getSuccessors()) {
+                tasks.add(new CountTask(perft, next, depth - 1));
+            }
+            invokeAll(tasks);
+            long count = 0;
+            for (CountTask task : tasks) {
+                count += task.join();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Subtree counts by position key and depth. Entries are always replaced and, as in the
+     * {@link TranspositionTable}, verified by storing the key xor the count, so threads share the cache without
+     * locks.
+     */
+    private static final class Cache {
+
+        private final long[] keys;
+        private final long[] counts;
+        private final int mask;
+
+        Cache(int sizeInMb) {
+            int entries = Integer.highestOneBit(Math.max(1, sizeInMb * (1 << 20) / 16));
+            keys = new long[entries];
+            counts = new long[entries];
+            mask = entries - 1;
+        }
+
+        private static long hash(long key, int depth) {
+            return key ^ depth * 0x9E3779B97F4A7C15L;
+        }
+
+        long probe(long key, int depth) {
+            long hash = hash(key, depth);
+            int index = (int) hash & mask;
+            long count = counts[index];
+            return (keys[index] ^ count) == hash && count > 0 ? count : -1;
+        }
+
+        void store(long key, int depth, long count) {
+            long hash = hash(key, depth);
+            int index = (int) hash & mask;
+            counts[index] = count;
+            keys[index] = hash ^ count;
+        }
+    }
+}
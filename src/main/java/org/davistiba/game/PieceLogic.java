@@ -1,15 +1,45 @@
 package org.davistiba.game;
 
-public class PieceLogic {
+/**
+ * Kind of a piece: its owner and whether it is a king. There are only four kinds, so the instances are shared;
+ * get them with {@link #of(StartPlayer, boolean)}.
+ */
+public final class PieceLogic {
+
+    private static final int[] MOVE_X = {-1, 1};
+    private static final int[] KING_MOVE_Y = {-1, 1};
+    private static final int[] AI_MAN_MOVE_Y = {1};
+    private static final int[] HUMAN_MAN_MOVE_Y = {-1};
+
+    // kinds by player ordinal * 2 + (king ? 1 : 0)
+    private static final PieceLogic[] KINDS = new PieceLogic[StartPlayer.values().length * 2];
+
+    static {
+        for (StartPlayer player : StartPlayer.values()) {
+            KINDS[player.ordinal() * 2] = new PieceLogic(player, false);
+            KINDS[player.ordinal() * 2 + 1] = new PieceLogic(player, true);
+        }
+    }
 
     private final StartPlayer player;
     private final boolean king;
 
-    public PieceLogic(StartPlayer player, boolean king) {
+    private PieceLogic(StartPlayer player, boolean king) {
         this.player = player;
         this.king = king;
     }
 
+    /**
+     * Gets the shared instance of a piece kind.
+     *
+     * @param player owner of the piece
+     * @param king   whether the piece is a king
+     * @return piece kind
+     */
+    public static PieceLogic of(StartPlayer player, boolean king) {
+        return KINDS[player.ordinal() * 2 + (king ? 1 : 0)];
+    }
+
     public boolean isKing() {
         return king;
     }
@@ -19,34 +49,24 @@ public class PieceLogic {
     }
 
     /**
-     * Get possible x-direction movements
+     * Get possible x-direction movements. The array is shared and must not be modified.
      *
-     * @return
+     * @return x offsets
      */
     public int[] getValidMoveX() {
-        return new int[]{-1, 1};
+        return MOVE_X;
     }
 
     /**
-     * Get possible y-direction movements
+     * Get possible y-direction movements. The array is shared and must not be modified.
      *
-     * @return
+     * @return y offsets
      */
     public int[] getValidMoveY() {
-        int[] result = new int[]{};
         if (king) {
-            result = new int[]{-1, 1};
-        } else {
-            switch (player) {
-                case AI:
-                    result = new int[]{1};
-                    break;
-                case HUMAN:
-                    result = new int[]{-1};
-                    break;
-            }
+            return KING_MOVE_Y;
         }
-        return result;
+        return player == StartPlayer.AI ? AI_MAN_MOVE_Y : HUMAN_MAN_MOVE_Y;
     }
 
 }
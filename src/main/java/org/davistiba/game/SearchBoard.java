@@ -0,0 +1,258 @@
+package org.davistiba.game;
+
+import java.util.Arrays;
+
+/**
+ * Mutable bitboard position used by the search.
+ * <p>
+ * Moves are applied in place with {@link #makeMove(long)} and taken back with {@link #unmakeMove()}, so a whole
+ * search runs on a single board instead of copying a {@link GameState} for every node. Each made move pushes
+ * what is needed to undo it onto a primitive undo stack.
+ */
+public final class SearchBoard {
+
+    private static final StartPlayer[] PLAYERS = StartPlayer.values();
+
+    // piece masks indexed by player ordinal
+    private final long[] men = new long[2];
+    private final long[] kings = new long[2];
+    // material indexed by player ordinal, kept up to date by makeMove and unmakeMove so that the evaluation and
+    // game-over checks at every leaf read plain ints
+    private final int[] pieceCounts = new int[2];
+    private final int[] kingCounts = new int[2];
+    // piece-square sums indexed by player ordinal, kept up to date the same way
+    private final int[] scores = new int[2];
+    // player's turn
+    private StartPlayer turn;
+    // Zobrist key, updated incrementally on every move
+    private long key;
+    // undo stack: move, captured kings and previous key
+    private long[] undoMoves = new long[64];
+    private long[] undoCapturedKings = new long[64];
+    private long[] undoKeys = new long[64];
+    private int undoSize;
+
+    public SearchBoard(BitBoard board) {
+        men[StartPlayer.AI.ordinal()] = board.aiMen;
+        men[StartPlayer.HUMAN.ordinal()] = board.humanMen;
+        kings[StartPlayer.AI.ordinal()] = board.aiKings;
+        kings[StartPlayer.HUMAN.ordinal()] = board.humanKings;
+        for (int i = 0; i < 2; i++) {
+            pieceCounts[i] = Long.bitCount(men[i] | kings[i]);
+            kingCounts[i] = Long.bitCount(kings[i]);
+            scores[i] = Evaluation.sum(i, men[i], kings[i]);
+        }
+        turn = board.turn;
+        key = board.key;
+    }
+
+    /**
+     * Creates an immutable snapshot of the current position.
+     *
+     * @return position
+     */
+    public BitBoard toBitBoard() {
+        int ai = StartPlayer.AI.ordinal();
+        int human = StartPlayer.HUMAN.ordinal();
+        return new BitBoard(men[ai], kings[ai], men[human], kings[human], turn, 0, key);
+    }
+
+    public StartPlayer getTurn() {
+        return turn;
+    }
+
+    /**
+     * Gets the Zobrist key of the current position.
+     *
+     * @return position key
+     */
+    public long getKey() {
+        return key;
+    }
+
+    public long men(StartPlayer player) {
+        return men[player.ordinal()];
+    }
+
+    public long kings(StartPlayer player) {
+        return kings[player.ordinal()];
+    }
+
+    public long pieces(StartPlayer player) {
+        return men[player.ordinal()] | kings[player.ordinal()];
+    }
+
+    public int pieceCount(StartPlayer player) {
+        return pieceCounts[player.ordinal()];
+    }
+
+    public int kingCount(StartPlayer player) {
+        return kingCounts[player.ordinal()];
+    }
+
+    /**
+     * Is there a king (of either player) on the given bit?
+     *
+     * @param bit bit index
+     * @return true for a king, false for a man or an empty square
+     */
+    public boolean isKing(int bit) {
+        return ((kings[0] | kings[1]) & (1L << bit)) != 0;
+    }
+
+    private long empty() {
+        return BitBoard.VALID & ~(men[0] | men[1] | kings[0] | kings[1]);
+    }
+
+    /**
+     * Is the board in a game over state?
+     *
+     * @return true if a player has no pieces left
+     */
+    public boolean isGameOver() {
+        return pieceCounts[0] == 0 || pieceCounts[1] == 0;
+    }
+
+    /**
+     * Compute heuristic indicating how desirable this position is to a given player.
+     *
+     * @param player current StartPlayer
+     * @return level
+     */
+    public int computeHeuristic(StartPlayer player) {
+        if (Settings.HEURISTIC == Evaluation.PIECE_SQUARE) {
+            return evaluate(player);
+        }
+        StartPlayer opponent = player.getOpposite();
+        return GameState.computeHeuristic(pieceCount(player), kingCount(player),
+                pieceCount(opponent), kingCount(opponent));
+    }
+
+    /**
+     * Piece-square evaluation of the position, read from the sums kept up to date by the moves.
+     *
+     * @param player player to score the position for
+     * @return score in hundredths of a man
+     */
+    public int evaluate(StartPlayer player) {
+        int p = player.ordinal();
+        int o = 1 - p;
+        int score = scores[p] - scores[o];
+        // men in the runaway zones are rare, and then the term is a loop over a few bits
+        score += Evaluation.runaway(p, men[p], men[o] | kings[o]) - Evaluation.runaway(o, men[o], men[p] | kings[p]);
+        return turn == player ? score + Evaluation.TEMPO : score - Evaluation.TEMPO;
+    }
+
+    /**
+     * Adds the valid moves of the side to move to a list, respecting forced takes.
+     *
+     * @param out list receiving the moves
+     */
+    public void generateMoves(MoveList out) {
+        int side = turn.ordinal();
+        MoveGenerator.generate(turn, men[side], kings[side], pieces(turn.getOpposite()), empty(), out);
+    }
+
+    /**
+     * Adds the jump moves of the side to move to a list, whether or not takes are forced.
+     *
+     * @param out list receiving the moves
+     */
+    public void generateCaptures(MoveList out) {
+        int side = turn.ordinal();
+        MoveGenerator.generate(turn, men[side], kings[side], pieces(turn.getOpposite()), empty(), true, out);
+    }
+
+    /**
+     * Applies a move of the side to move in place.
+     *
+     * @param move encoded move, as generated by {@link #generateMoves(MoveList)}
+     */
+    public void makeMove(long move) {
+        int side = turn.ordinal();
+        int opponent = 1 - side;
+        StartPlayer player = turn;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        long fromMask = 1L << from;
+        long toMask = 1L << to;
+        long newKey = key ^ Zobrist.turn(player) ^ Zobrist.turn(PLAYERS[opponent]);
+        // move piece; a king may circle back to its origin
+        boolean king = (kings[side] & fromMask) != 0;
+        if (king) {
+            kings[side] = kings[side] & ~fromMask | toMask;
+        } else if (Move.isCrowning(move)) {
+            men[side] ^= fromMask;
+            kings[side] |= toMask;
+            kingCounts[side]++;
+        } else {
+            men[side] ^= fromMask | toMask;
+        }
+        newKey ^= Zobrist.piece(player, king, from) ^ Zobrist.piece(player, king || Move.isCrowning(move), to);
+        scores[side] += Evaluation.value(side, king || Move.isCrowning(move), to) - Evaluation.value(side, king, from);
+        turn = PLAYERS[opponent];
+        // remove captured pieces
+        long captures = Move.captures(move);
+        long capturedKings = kings[opponent] & captures;
+        for (long c = captures; c != 0; c &= c - 1) {
+            int captured = Long.numberOfTrailingZeros(c);
+            boolean capturedKing = (capturedKings & (1L << captured)) != 0;
+            scores[opponent] -= Evaluation.value(opponent, capturedKing, captured);
+            newKey ^= Zobrist.piece(turn, capturedKing, captured);
+        }
+        men[opponent] &= ~captures;
+        kings[opponent] ^= capturedKings;
+        pieceCounts[opponent] -= Long.bitCount(captures);
+        kingCounts[opponent] -= Long.bitCount(capturedKings);
+        push(move, capturedKings, key);
+        key = newKey;
+    }
+
+    /**
+     * Takes back the most recent move made with {@link #makeMove(long)}.
+     */
+    public void unmakeMove() {
+        undoSize--;
+        long move = undoMoves[undoSize];
+        int opponent = turn.ordinal();
+        int side = 1 - opponent;
+        long fromMask = 1L << Move.from(move);
+        long toMask = 1L << Move.to(move);
+        boolean king = (kings[side] & toMask) != 0;
+        if (Move.isCrowning(move)) {
+            kings[side] ^= toMask;
+            men[side] |= fromMask;
+            kingCounts[side]--;
+        } else if (king) {
+            kings[side] = kings[side] & ~toMask | fromMask;
+        } else {
+            men[side] ^= toMask | fromMask;
+        }
+        scores[side] -= Evaluation.value(side, king, Move.to(move))
+                - Evaluation.value(side, king && !Move.isCrowning(move), Move.from(move));
+        long captures = Move.captures(move);
+        long capturedKings = undoCapturedKings[undoSize];
+        for (long c = captures; c != 0; c &= c - 1) {
+            int captured = Long.numberOfTrailingZeros(c);
+            scores[opponent] += Evaluation.value(opponent, (capturedKings & (1L << captured)) != 0, captured);
+        }
+        men[opponent] |= captures & ~capturedKings;
+        kings[opponent] |= capturedKings;
+        pieceCounts[opponent] += Long.bitCount(captures);
+        kingCounts[opponent] += Long.bitCount(capturedKings);
+        turn = PLAYERS[side];
+        key = undoKeys[undoSize];
+    }
+
+    private void push(long move, long capturedKings, long previousKey) {
+        if (undoSize == undoMoves.length) {
+            undoMoves = Arrays.copyOf(undoMoves, undoSize * 2);
+            undoCapturedKings = Arrays.copyOf(undoCapturedKings, undoSize * 2);
+            undoKeys = Arrays.copyOf(undoKeys, undoSize * 2);
+        }
+        undoMoves[undoSize] = move;
+        undoCapturedKings[undoSize] = capturedKings;
+        undoKeys[undoSize] = previousKey;
+        undoSize++;
+    }
+}
@@ -0,0 +1,373 @@
+package org.davistiba.game;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Running totals of the searches of all ComputerEnemy instances playing for one player.
+ * <p>
+ * The search itself counts in plain fields of each thread's Searcher; only the totals of a finished move are
+ * added here, to {@link LongAdder} accumulators, so neither the search nor threads finishing moves at the same
+ * time contend on the metrics. They are published as an MXBean and can be sampled with {@link #snapshot()} or
+ * {@link #publishEvery(long, TimeUnit, Consumer)}.
+ */
+public final class SearchMetrics implements SearchMetricsMXBean {
+
+    // latency buckets: under 1 ms, then powers of two up to 2^16 ms, then everything longer
+    static final int LATENCY_BUCKETS = 18;
+
+    private static final Logger logger = Logger.getLogger(String.valueOf(SearchMetrics.class));
+    private static final SearchMetrics[] byPlayer = new SearchMetrics[StartPlayer.values().length];
+    private static ScheduledExecutorService scheduler;
+
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder cutoffs = new LongAdder();
+    private final LongAdder tableProbes = new LongAdder();
+    private final LongAdder tableHits = new LongAdder();
+    private final LongAdder depth = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final DoubleAdder branchingFactor = new DoubleAdder();
+    private final LongAdder timeMs = new LongAdder();
+    private final LongAdder[] latency = new LongAdder[LATENCY_BUCKETS];
+
+    SearchMetrics() {
+        for (int i = 0; i < latency.length; i++) {
+            latency[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Gets the metrics of a player, registering them over JMX on first use if {@link Settings#JMX_METRICS} is on.
+     *
+     * @param player player the searches are for
+     * @return metrics
+     */
+    public static synchronized SearchMetrics forPlayer(StartPlayer player) {
+        SearchMetrics metrics = byPlayer[player.ordinal()];
+        if (metrics == null) {
+            metrics = new SearchMetrics();
+            byPlayer[player.ordinal()] = metrics;
+            if (Settings.JMX_METRICS) {
+                try {
+                    ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+                            new ObjectName("org.davistiba.game:type=SearchMetrics,player=" + player));
+                } catch (JMException e) {
+                    logger.log(Level.WARNING, "Cannot register search metrics", e);
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Adds a finished move.
+     */
+    void record(SearchStatistics statistics) {
+        moves.increment();
+        nodes.add(statistics.getNodes());
+        evaluations.add(statistics.getEvaluations());
+        cutoffs.add(statistics.getCutoffs());
+        tableProbes.add(statistics.getTableProbes());
+        tableHits.add(statistics.getTableHits());
+        depth.add(statistics.getDepth());
+        maxDepth.accumulate(statistics.getDepth());
+        branchingFactor.add(statistics.getEffectiveBranchingFactor());
+        timeMs.add(statistics.getTimeMs());
+        latency[latencyBucket(statistics.getTimeMs())].increment();
+    }
+
+    static int latencyBucket(long timeMs) {
+        return Math.min(64 - Long.numberOfLeadingZeros(timeMs), LATENCY_BUCKETS - 1);
+    }
+
+    /**
+     * Copies the current totals; moves finishing meanwhile may be partly included.
+     */
+    public Snapshot snapshot() {
+        long[] histogram = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = latency[i].sum();
+        }
+        return new Snapshot(System.currentTimeMillis(), moves.sum(), nodes.sum(), evaluations.sum(), cutoffs.sum(),
+                tableProbes.sum(), tableHits.sum(), depth.sum(), maxDepth.get(), branchingFactor.sum(), timeMs.sum(),
+                histogram);
+    }
+
+    /**
+     * Calls a listener at a fixed rate with what was searched since the previous call, on a shared background
+     * thread.
+     *
+     * @param period   time between calls
+     * @param unit     unit of the period
+     * @param listener receives the metrics of each period
+     * @return handle to cancel the calls
+     */
+    public ScheduledFuture<?> publishEvery(long period, TimeUnit unit, Consumer<Snapshot> listener) {
+        Snapshot[] previous = {snapshot()};
+        return scheduler().scheduleAtFixedRate(() -> {
+            Snapshot current = snapshot();
+            listener.accept(current.since(previous[0]));
+            previous[0] = current;
+        }, period, period, unit);
+    }
+
+    private static synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "search metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return scheduler;
+    }
+
+    @Override
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    @Override
+    public long getCutoffs() {
+        return cutoffs.sum();
+    }
+
+    @Override
+    public long getTableProbes() {
+        return tableProbes.sum();
+    }
+
+    @Override
+    public long getTableHits() {
+        return tableHits.sum();
+    }
+
+    @Override
+    public double getTableHitRate() {
+        return snapshot().getTableHitRate();
+    }
+
+    @Override
+    public double getAverageDepth() {
+        return snapshot().getAverageDepth();
+    }
+
+    @Override
+    public long getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    @Override
+    public double getAverageBranchingFactor() {
+        return snapshot().getAverageBranchingFactor();
+    }
+
+    @Override
+    public double getAverageTimeMs() {
+        return snapshot().getAverageTimeMs();
+    }
+
+    @Override
+    public long getNodesPerSecond() {
+        return snapshot().getNodesPerSecond();
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        return snapshot().getLatencyHistogram();
+    }
+
+    @Override
+    public long getLatencyPercentileMs(double percentile) {
+        return snapshot().getLatencyPercentileMs(percentile);
+    }
+
+    /**
+     * Sets all counters back to zero; moves finishing meanwhile may be partly counted.
+     */
+    @Override
+    public void reset() {
+        moves.reset();
+        nodes.reset();
+        evaluations.reset();
+        cutoffs.reset();
+        tableProbes.reset();
+        tableHits.reset();
+        depth.reset();
+        maxDepth.reset();
+        branchingFactor.reset();
+        timeMs.reset();
+        for (LongAdder bucket : latency) {
+            bucket.reset();
+        }
+    }
+
+    /**
+     * Search totals at one point in time, or over a period with {@link #since(Snapshot)}.
+     */
+    public static final class Snapshot {
+
+        private final long timestampMs;
+        private final long moves;
+        private final long nodes;
+        private final long evaluations;
+        private final long cutoffs;
+        private final long tableProbes;
+        private final long tableHits;
+        private final long depth;
+        private final long maxDepth;
+        private final double branchingFactor;
+        private final long timeMs;
+        private final long[] latency;
+
+        Snapshot(long timestampMs, long moves, long nodes, long evaluations, long cutoffs, long tableProbes,
+                 long tableHits, long depth, long maxDepth, double branchingFactor, long timeMs, long[] latency) {
+            this.timestampMs = timestampMs;
+            this.moves = moves;
+            this.nodes = nodes;
+            this.evaluations = evaluations;
+            this.cutoffs = cutoffs;
+            this.tableProbes = tableProbes;
+            this.tableHits = tableHits;
+            this.depth = depth;
+            this.maxDepth = maxDepth;
+            this.branchingFactor = branchingFactor;
+            this.timeMs = timeMs;
+            this.latency = latency;
+        }
+
+        /**
+         * What was searched between an earlier snapshot and this one. The maximum depth is not reset by the
+         * difference and stays the overall one.
+         */
+        public Snapshot since(Snapshot earlier) {
+            long[] histogram = new long[latency.length];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = latency[i] - earlier.latency[i];
+            }
+            return new Snapshot(timestampMs, moves - earlier.moves, nodes - earlier.nodes,
+                    evaluations - earlier.evaluations, cutoffs - earlier.cutoffs, tableProbes - earlier.tableProbes,
+                    tableHits - earlier.tableHits, depth - earlier.depth, maxDepth,
+                    branchingFactor - earlier.branchingFactor, timeMs - earlier.timeMs, histogram);
+        }
+
+        public long getTimestampMs() {
+            return timestampMs;
+        }
+
+        public long getMoves() {
+            return moves;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        public long getCutoffs() {
+            return cutoffs;
+        }
+
+        public long getTableProbes() {
+            return tableProbes;
+        }
+
+        public long getTableHits() {
+            return tableHits;
+        }
+
+        public double getTableHitRate() {
+            return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+        }
+
+        public double getAverageDepth() {
+            return moves == 0 ? 0 : (double) depth / moves;
+        }
+
+        public long getMaxDepth() {
+            return maxDepth;
+        }
+
+        public double getAverageBranchingFactor() {
+            return moves == 0 ? 0 : branchingFactor / moves;
+        }
+
+        public long getTimeMs() {
+            return timeMs;
+        }
+
+        public double getAverageTimeMs() {
+            return moves == 0 ? 0 : (double) timeMs / moves;
+        }
+
+        public long getNodesPerSecond() {
+            return nodes * 1000 / Math.max(1, timeMs);
+        }
+
+        /**
+         * Number of moves per search time bucket, as in {@link SearchMetricsMXBean#getLatencyHistogram()}.
+         */
+        public long[] getLatencyHistogram() {
+            return latency.clone();
+        }
+
+        /**
+         * Upper bound in milliseconds of the latency bucket holding a percentile of the moves.
+         *
+         * @param percentile percentile between 0 and 100
+         * @return bucket bound, {@link Long#MAX_VALUE} for the last bucket and 0 if there were no moves
+         */
+        public long getLatencyPercentileMs(double percentile) {
+            long total = 0;
+            for (long count : latency) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100 * total);
+            long seen = 0;
+            for (int i = 0; i < latency.length - 1; i++) {
+                seen += latency[i];
+                if (seen >= Math.max(1, rank)) {
+                    return 1L << i;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d moves, %d nodes (%d nodes/s), average depth %.1f (max %d), "
+                            + "branching factor %.2f, hash hit rate %.1f%%, median %d ms, 95th percentile %d ms",
+                    moves, nodes, getNodesPerSecond(), getAverageDepth(), maxDepth, getAverageBranchingFactor(),
+                    100 * getTableHitRate(), getLatencyPercentileMs(50), getLatencyPercentileMs(95));
+        }
+    }
+}
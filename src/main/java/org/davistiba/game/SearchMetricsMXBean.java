@@ -0,0 +1,59 @@
+package org.davistiba.game;
+
+/**
+ * Management interface of {@link SearchMetrics}, published over JMX as
+ * {@code org.davistiba.game:type=SearchMetrics,player=AI} (or {@code HUMAN} for the hint engine).
+ */
+public interface SearchMetricsMXBean {
+
+    /**
+     * Number of searched moves.
+     */
+    long getMoves();
+
+    long getNodes();
+
+    long getEvaluations();
+
+    long getCutoffs();
+
+    long getTableProbes();
+
+    long getTableHits();
+
+    /**
+     * Share of transposition table lookups that found the position, between 0 and 1.
+     */
+    double getTableHitRate();
+
+    double getAverageDepth();
+
+    /**
+     * Deepest iteration completed by any move.
+     */
+    long getMaxDepth();
+
+    double getAverageBranchingFactor();
+
+    double getAverageTimeMs();
+
+    long getNodesPerSecond();
+
+    /**
+     * Number of moves per search time bucket: bucket 0 counts moves under 1 ms, bucket i moves from 2^(i-1) ms to
+     * under 2^i ms, and the last bucket everything longer.
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * Upper bound in milliseconds of the latency bucket holding the given percentile.
+     *
+     * @param percentile percentile between 0 and 100
+     */
+    long getLatencyPercentileMs(double percentile);
+
+    /**
+     * Sets all counters back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,259 @@
+package org.davistiba.game;
+
+/**
+ * Statistics of one ComputerEnemy search.
+ */
+public final class SearchStatistics {
+
+    private final long nodes;
+    private final long evaluations;
+    private final long tableProbes;
+    private final long tableHits;
+    private final long cutoffs;
+    private final long firstMoveCutoffs;
+    private final long tablebaseHits;
+    private final long researches;
+    private final long quiescenceNodes;
+    private final long evaluationCacheHits;
+    private final long evaluationCacheMisses;
+    private final long reductions;
+    private final long reductionResearches;
+    private final long futilityPrunes;
+    private final long probCutTries;
+    private final long probCuts;
+    private final int score;
+    private final int depth;
+    private final long timeMs;
+    private final int threads;
+
+    /**
+     * Sums the counters of the Searchers that took part in a search.
+     */
+    SearchStatistics(Iterable<Searcher> searchers, int score, int depth, long timeMs, int threads) {
+        long nodes = 0;
+        long evaluations = 0;
+        long tableProbes = 0;
+        long tableHits = 0;
+        long cutoffs = 0;
+        long firstMoveCutoffs = 0;
+        long tablebaseHits = 0;
+        long researches = 0;
+        long quiescenceNodes = 0;
+        long evaluationCacheHits = 0;
+        long evaluationCacheMisses = 0;
+        long reductions = 0;
+        long reductionResearches = 0;
+        long futilityPrunes = 0;
+        long probCutTries = 0;
+        long probCuts = 0;
+        for (Searcher s : searchers) {
+            nodes += s.nodes;
+            evaluations += s.evaluations;
+            tableProbes += s.tableProbes;
+            tableHits += s.tableHits;
+            cutoffs += s.cutoffs;
+            firstMoveCutoffs += s.firstMoveCutoffs;
+            tablebaseHits += s.tablebaseHits;
+            researches += s.researches;
+            quiescenceNodes += s.quiescenceNodes;
+            evaluationCacheHits += s.evaluationCacheHits;
+            evaluationCacheMisses += s.evaluationCacheMisses;
+            reductions += s.reductions;
+            reductionResearches += s.reductionResearches;
+            futilityPrunes += s.futilityPrunes;
+            probCutTries += s.probCutTries;
+            probCuts += s.probCuts;
+        }
+        this.nodes = nodes;
+        this.evaluations = evaluations;
+        this.tableProbes = tableProbes;
+        this.tableHits = tableHits;
+        this.cutoffs = cutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+        this.tablebaseHits = tablebaseHits;
+        this.researches = researches;
+        this.quiescenceNodes = quiescenceNodes;
+        this.evaluationCacheHits = evaluationCacheHits;
+        this.evaluationCacheMisses = evaluationCacheMisses;
+        this.reductions = reductions;
+        this.reductionResearches = reductionResearches;
+        this.futilityPrunes = futilityPrunes;
+        this.probCutTries = probCutTries;
+        this.probCuts = probCuts;
+        this.score = score;
+        this.depth = depth;
+        this.timeMs = timeMs;
+        this.threads = threads;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Number of leaves scored by the heuristic.
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Number of transposition table lookups.
+     */
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    /**
+     * Number of transposition table lookups that found the position.
+     */
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    /**
+     * Average number of nodes per ply: the n-th root of the node count of a search to depth n, all iterations
+     * included. The lower, the better the pruning.
+     */
+    public double getEffectiveBranchingFactor() {
+        return depth == 0 || nodes == 0 ? 0 : Math.pow(nodes, 1.0 / depth);
+    }
+
+    /**
+     * Number of nodes in which a move caused a beta cutoff.
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * Number of nodes in which the first move searched caused the beta cutoff.
+     */
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /**
+     * Share of cutoffs caused by the first move searched; close to 1 means the move ordering is nearly perfect.
+     *
+     * @return first-move cutoff rate between 0 and 1
+     */
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * Number of nodes scored from the endgame tablebase.
+     */
+    public long getTablebaseHits() {
+        return tablebaseHits;
+    }
+
+    /**
+     * Number of moves searched again with a wider window, after a null window or an aspiration window failed.
+     */
+    public long getResearches() {
+        return researches;
+    }
+
+    /**
+     * Number of nodes searched beyond the depth limit to play out captures, included in the node count.
+     */
+    public long getQuiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    /**
+     * Number of static evaluations found in the evaluation cache.
+     */
+    public long getEvaluationCacheHits() {
+        return evaluationCacheHits;
+    }
+
+    /**
+     * Number of static evaluations computed because the evaluation cache did not have them.
+     */
+    public long getEvaluationCacheMisses() {
+        return evaluationCacheMisses;
+    }
+
+    /**
+     * Number of late moves searched at reduced depth.
+     */
+    public long getReductions() {
+        return reductions;
+    }
+
+    /**
+     * Number of reduced moves that beat alpha and were searched again at full depth. A high share means the
+     * reductions cut too many good moves short.
+     */
+    public long getReductionResearches() {
+        return reductionResearches;
+    }
+
+    /**
+     * Number of quiet moves skipped at the frontier because they could not reach alpha.
+     */
+    public long getFutilityPrunes() {
+        return futilityPrunes;
+    }
+
+    /**
+     * Number of shallow ProbCut searches.
+     */
+    public long getProbCutTries() {
+        return probCutTries;
+    }
+
+    /**
+     * Number of nodes cut off by a ProbCut search instead of being searched to full depth.
+     */
+    public long getProbCuts() {
+        return probCuts;
+    }
+
+    /**
+     * Score of the best move for the player who searched, from the deepest completed iteration.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Depth of the deepest completed iteration.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    /**
+     * Number of threads that searched.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Nodes searched per second by all threads together.
+     */
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, timeMs);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d nodes (%d quiescence) to depth %d in %d ms (%d nodes/s on %d threads), score %d, "
+                        + "branching factor %.2f, first-move cutoff rate %.1f%%, hash hits %d/%d, "
+                        + "evaluation cache hits %d/%d, %d re-searches, "
+                        + "%d reductions (%d re-searched), %d futility prunes, %d/%d ProbCuts, %d tablebase hits",
+                nodes, quiescenceNodes, depth, timeMs, getNodesPerSecond(), threads, score,
+                getEffectiveBranchingFactor(), 100 * getFirstMoveCutoffRate(), tableHits, tableProbes,
+                evaluationCacheHits, evaluationCacheHits + evaluationCacheMisses, researches,
+                reductions, reductionResearches, futilityPrunes, probCuts, probCutTries, tablebaseHits);
+    }
+}
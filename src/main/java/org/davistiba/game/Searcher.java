@@ -0,0 +1,585 @@
+package org.davistiba.game;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Alpha-beta search below the root for a {@link ComputerEnemy}.
+ * <p>
+ * Every search thread owns one Searcher with its own move ordering tables and counters. The transposition table
+ * and the stop signal belong to the ComputerEnemy and are shared by all of its Searchers.
+ * <p>
+ * When split points are enabled, nodes close enough to the root are searched in parallel the Young Brothers Wait
+ * way: the first move is searched alone, and once it has not caused a cutoff the remaining moves are forked as
+ * tasks that idle threads can steal. A cutoff in one of them cancels its siblings.
+ * <p>
+ * With principal variation search ({@link Settings#PVS}) every move after the first is expected to be worse and
+ * is first searched with a null window around alpha, which is much cheaper than a full search; only a move that
+ * turns out to be better is searched again with the full window.
+ * <p>
+ * At the depth limit, a quiescence search ({@link Settings#QUIESCENCE}) plays out captures until the position is
+ * quiet, so that a position is never scored with a capture pending.
+ * <p>
+ * The search is made selective by three techniques, each with its own switch in {@link Settings}: late move
+ * reductions search quiet moves far down the move list less deep, futility pruning skips quiet moves at the
+ * frontier that cannot bring the score up to alpha, and ProbCut cuts off deep nodes whose shallow search already
+ * clears beta by a margin. They trade exactness for depth, so their counters are kept for tuning.
+ */
+final class Searcher {
+
+    // scores beyond this are wins or losses at a known distance from the root
+    static final int WIN_BOUND = ComputerEnemy.WIN - 10_000;
+    // nodes searched between two looks at the clock
+    private static final int TIME_CHECK_INTERVAL = 1024;
+    // smallest remaining depth at which siblings are searched in parallel; shallower subtrees are not worth a task
+    private static final int MIN_SPLIT_DEPTH = 4;
+    // result of a sibling task that was cancelled
+    private static final int CANCELLED = Integer.MIN_VALUE;
+    // late move reductions: smallest remaining depth and number of moves searched before reducing
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVES = 3;
+    // moves this far down the list are reduced by two plies when deep enough
+    private static final int LMR_LATE_MOVES = 6;
+    // ProbCut: smallest remaining depth and depth saved by the shallow search
+    private static final int PROBCUT_MIN_DEPTH = 5;
+    private static final int PROBCUT_REDUCTION = 4;
+
+    private final ComputerEnemy engine;
+    private final StartPlayer player;
+    private final TranspositionTable table;
+    private final EvaluationCache evaluationCache;
+    // move ordering tables, kept between iterations
+    private final MoveOrdering ordering;
+    // endgame tables of the running search, null if there are none
+    private Tablebase tablebase;
+    // whether the running search uses principal variation search
+    private boolean pvs;
+    // whether the running search resolves captures at the depth limit
+    private boolean quiescence;
+    // selective search switches of the running search
+    private boolean lmr;
+    private boolean futility;
+    private boolean probCut;
+    private int futilityMargin;
+    private int probCutMargin;
+    // whether the running search uses the piece-square evaluation, read once instead of at every leaf
+    private boolean pieceSquare;
+    // split point of the sibling task this thread is running, null outside of tasks
+    private SplitPoint splitPoint;
+    // move lists of the nodes on this thread's stack, reused from node to node; a sibling task run while
+    // waiting for others takes the lists above those in use, so they are stacked rather than indexed by ply
+    private MoveList[] moveLists = new MoveList[MoveOrdering.MAX_PLY];
+    private int moveListsUsed;
+
+    // counters of the running search, only written by the owning thread
+    long nodes;
+    long evaluations;
+    long tableProbes;
+    long tableHits;
+    long cutoffs;
+    long firstMoveCutoffs;
+    long tablebaseHits;
+    long researches;
+    long quiescenceNodes;
+    long evaluationCacheHits;
+    long evaluationCacheMisses;
+    long reductions;
+    long reductionResearches;
+    long futilityPrunes;
+    long probCutTries;
+    long probCuts;
+
+    Searcher(ComputerEnemy engine, StartPlayer player, TranspositionTable table) {
+        this.engine = engine;
+        this.player = player;
+        this.table = table;
+        this.evaluationCache = engine.getEvaluationCache();
+        this.ordering = new MoveOrdering(engine.getHistory());
+        this.tablebase = Tablebase.forSettings();
+        this.pvs = Settings.PVS;
+        this.quiescence = Settings.QUIESCENCE;
+        readSelectivity();
+    }
+
+    /**
+     * Prepares for a new search: counters are reset and killer moves forgotten.
+     */
+    void newSearch() {
+        nodes = 0;
+        evaluations = 0;
+        tableProbes = 0;
+        tableHits = 0;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        tablebaseHits = 0;
+        researches = 0;
+        quiescenceNodes = 0;
+        evaluationCacheHits = 0;
+        evaluationCacheMisses = 0;
+        reductions = 0;
+        reductionResearches = 0;
+        futilityPrunes = 0;
+        probCutTries = 0;
+        probCuts = 0;
+        ordering.newSearch();
+        tablebase = Tablebase.forSettings();
+        pvs = Settings.PVS;
+        quiescence = Settings.QUIESCENCE;
+        readSelectivity();
+    }
+
+    private void readSelectivity() {
+        lmr = Settings.LMR;
+        futility = Settings.FUTILITY;
+        probCut = Settings.PROBCUT;
+        futilityMargin = Evaluation.scale(Settings.FUTILITY_MARGIN);
+        probCutMargin = Evaluation.scale(Settings.PROBCUT_MARGIN);
+        pieceSquare = Settings.HEURISTIC == Evaluation.PIECE_SQUARE;
+    }
+
+    /**
+     * Searches the position after a root move and scores it for the player who made the move.
+     */
+    int score(SearchBoard node, int depth, int alpha, int beta, int ply) {
+        return -negamax(node, depth, -beta, -alpha, ply);
+    }
+
+    /**
+     * Tells whether the running search uses principal variation search.
+     */
+    boolean isPvs() {
+        return pvs;
+    }
+
+    /**
+     * Searches the position after a move and scores it for the side that made the move.
+     *
+     * @param nullWindow whether to try a null window around alpha first and only search again with the full
+     *                   window if the move scores between alpha and beta
+     */
+    private int searchMove(SearchBoard node, int depth, int alpha, int beta, int ply, boolean nullWindow) {
+        if (nullWindow && beta - alpha > 1) {
+            int score = -negamax(node, depth, -alpha - 1, -alpha, ply);
+            if (score <= alpha || score >= beta || isAborted()) {
+                return score;
+            }
+            researches++;
+        }
+        return -negamax(node, depth, -beta, -alpha, ply);
+    }
+
+    /**
+     * Alpha-beta search in negamax form: scores are always relative to the side to move.
+     *
+     * @param node  position to search
+     * @param depth remaining depth
+     * @param alpha lower bound
+     * @param beta  upper bound
+     * @param ply   distance from the root
+     * @return score of the position for the side to move, meaningless if the search was stopped
+     */
+    int negamax(SearchBoard node, int depth, int alpha, int beta, int ply) {
+        if (++nodes % TIME_CHECK_INTERVAL == 0) {
+            engine.checkTime();
+        }
+        if (isAborted()) {
+            return 0;
+        }
+        if (node.isGameOver()) {
+            return evaluate(node, ply);
+        }
+        if (tablebase != null && (node.men(StartPlayer.AI) | node.men(StartPlayer.HUMAN)) == 0) {
+            StartPlayer side = node.getTurn();
+            int value = tablebase.probe(side, node.kings(side), node.kings(side.getOpposite()));
+            if (value != Tablebase.NOT_FOUND) {
+                tablebaseHits++;
+                return fromTablebase(value, ply);
+            }
+        }
+        if (depth == 0) {
+            return quiescence ? quiesce(node, alpha, beta, ply) : evaluate(node, ply);
+        }
+
+        int hashMove = 0;
+        if (table != null) {
+            long entry = table.probe(node.getKey());
+            tableProbes++;
+            if (entry != 0) {
+                tableHits++;
+                hashMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER && score >= beta)
+                            || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+        }
+
+        boolean decisive = Math.abs(alpha) >= WIN_BOUND || Math.abs(beta) >= WIN_BOUND;
+        if (probCut && depth >= PROBCUT_MIN_DEPTH && !decisive) {
+            // a shallow search that clears beta by a margin predicts that the full search would cut off too
+            int probBeta = beta + probCutMargin;
+            probCutTries++;
+            int score = negamax(node, depth - PROBCUT_REDUCTION, probBeta - 1, probBeta, ply);
+            if (isAborted()) {
+                return 0;
+            }
+            if (score >= probBeta) {
+                probCuts++;
+                return score;
+            }
+        }
+
+        MoveList children = pushMoveList();
+        try {
+            node.generateMoves(children);
+            if (children.isEmpty()) {
+                // a player who cannot move loses
+                return -(ComputerEnemy.WIN - ply);
+            }
+            ordering.order(children, hashMove, ply, node);
+            return searchChildren(node, children, depth, alpha, beta, ply, decisive);
+        } finally {
+            moveListsUsed--;
+        }
+    }
+
+    /**
+     * Searches the ordered moves of a node and stores the result in the transposition table.
+     *
+     * @param decisive whether the window is beyond {@link #WIN_BOUND}, where selective pruning is unsafe
+     */
+    private int searchChildren(SearchBoard node, MoveList children, int depth, int alpha, int beta, int ply,
+                               boolean decisive) {
+        int originalAlpha = alpha;
+        StartPlayer side = node.getTurn();
+        int bestScore = -ComputerEnemy.INFINITY;
+        long bestMove = 0;
+        boolean split = engine.isSplitting() && depth >= MIN_SPLIT_DEPTH;
+        // best a quiet move at the frontier can score, if futility pruning applies here
+        int futilityScore = futility && depth == 1 && !decisive
+                ? evaluate(node, ply) + futilityMargin : ComputerEnemy.INFINITY;
+        for (int i = 0; i < children.size(); i++) {
+            if (split && i == 1) {
+                // the eldest brother has not caused a cutoff, search the others in parallel
+                long result = searchSiblings(node, children, depth, alpha, beta, ply);
+                if (isAborted()) {
+                    return 0;
+                }
+                int score = (int) (result >> 32);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = children.get((int) result);
+                }
+                break;
+            }
+            long move = children.get(i);
+            boolean quiet = !Move.isJump(move) && !Move.isCrowning(move);
+            if (quiet && i > 0 && futilityScore <= alpha) {
+                futilityPrunes++;
+                bestScore = Math.max(bestScore, futilityScore);
+                continue;
+            }
+            int reduction = lmr && quiet && depth >= LMR_MIN_DEPTH && i >= LMR_MIN_MOVES
+                    ? (i >= LMR_LATE_MOVES && depth > LMR_MIN_DEPTH ? 2 : 1) : 0;
+            node.makeMove(move);
+            int score;
+            if (reduction > 0) {
+                reductions++;
+                score = -negamax(node, depth - 1 - reduction, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && !isAborted()) {
+                    reductionResearches++;
+                    score = searchMove(node, depth - 1, alpha, beta, ply + 1, pvs);
+                }
+            } else {
+                score = searchMove(node, depth - 1, alpha, beta, ply + 1, pvs && i > 0);
+            }
+            node.unmakeMove();
+            if (isAborted()) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+            }
+            alpha = Math.max(alpha, bestScore);
+            if (alpha >= beta) {
+                cutoffs++;
+                if (i == 0) {
+                    firstMoveCutoffs++;
+                }
+                ordering.onCutoff(move, ply, depth, side);
+                break; // Prune
+            }
+        }
+
+        if (table != null) {
+            int bound = bestScore <= originalAlpha ? TranspositionTable.UPPER
+                    : bestScore >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            table.store(node.getKey(), depth, bound, toTable(bestScore, ply), Move.id(bestMove));
+        }
+        return bestScore;
+    }
+
+    /**
+     * Searches captures only, until the side to move has none left.
+     * <p>
+     * When takes are forced, a position with a capture has no quiet alternative, so all captures are searched and
+     * the static score is not used. Otherwise the side to move may stand pat: the static score is a lower bound,
+     * and captures are only searched to improve on it.
+     */
+    private int quiesce(SearchBoard node, int alpha, int beta, int ply) {
+        if (isAborted()) {
+            return 0;
+        }
+        if (node.isGameOver()) {
+            return evaluate(node, ply);
+        }
+        MoveList captures = pushMoveList();
+        try {
+            node.generateCaptures(captures);
+            return captures.isEmpty() ? evaluate(node, ply) : searchCaptures(node, captures, alpha, beta, ply);
+        } finally {
+            moveListsUsed--;
+        }
+    }
+
+    private int searchCaptures(SearchBoard node, MoveList captures, int alpha, int beta, int ply) {
+        int bestScore = -ComputerEnemy.INFINITY;
+        if (!Settings.FORCETAKES) {
+            bestScore = evaluate(node, ply);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+        }
+        for (int i = 0; i < captures.size(); i++) {
+            if (++nodes % TIME_CHECK_INTERVAL == 0) {
+                engine.checkTime();
+            }
+            quiescenceNodes++;
+            node.makeMove(captures.get(i));
+            int score = -quiesce(node, -beta, -alpha, ply + 1);
+            node.unmakeMove();
+            if (isAborted()) {
+                return 0;
+            }
+            bestScore = Math.max(bestScore, score);
+            alpha = Math.max(alpha, bestScore);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Takes the next free move list of this thread's stack, empty; it is given back by decrementing
+     * {@link #moveListsUsed}.
+     */
+    private MoveList pushMoveList() {
+        if (moveListsUsed == moveLists.length) {
+            moveLists = Arrays.copyOf(moveLists, moveLists.length * 2);
+        }
+        MoveList list = moveLists[moveListsUsed];
+        if (list == null) {
+            list = new MoveList();
+            moveLists[moveListsUsed] = list;
+        }
+        moveListsUsed++;
+        list.clear();
+        return list;
+    }
+
+    /**
+     * Searches all moves but the first in parallel. The alpha bound is shared by the sibling tasks and raised as
+     * they finish; the first task to fail high cancels the others.
+     *
+     * @return best score in the high 32 bits and the index of its move in the low 32 bits, or a score of
+     * {@link #CANCELLED} if the siblings all failed to complete
+     */
+    private long searchSiblings(SearchBoard node, MoveList children, int depth, int alpha, int beta, int ply) {
+        SplitPoint point = new SplitPoint(splitPoint, alpha, beta);
+        BitBoard position = node.toBitBoard();
+        SiblingSearch[] tasks = new SiblingSearch[children.size()];
+        for (int i = 1; i < children.size(); i++) {
+            tasks[i] = new SiblingSearch(engine, point, position, children.get(i), depth - 1, ply + 1);
+            if (ForkJoinTask.inForkJoinPool()) {
+                tasks[i].fork();
+            } else {
+                engine.threadPool().execute(tasks[i]);
+            }
+        }
+        int bestScore = CANCELLED;
+        int bestIndex = 0;
+        for (int i = 1; i < tasks.length; i++) {
+            int score = tasks[i].join();
+            if (score > bestScore) {
+                bestScore = score;
+                bestIndex = i;
+            }
+        }
+        if (bestScore >= beta) {
+            cutoffs++;
+            ordering.onCutoff(children.get(bestIndex), ply, depth, node.getTurn());
+        }
+        return (long) bestScore << 32 | bestIndex;
+    }
+
+    private boolean isAborted() {
+        return engine.isStopped() || (splitPoint != null && splitPoint.isCancelled());
+    }
+
+    /**
+     * A node whose younger brothers are searched in parallel.
+     */
+    private static final class SplitPoint {
+
+        private final SplitPoint parent;
+        private final AtomicInteger alpha;
+        private final int beta;
+        private volatile boolean cutoff;
+
+        SplitPoint(SplitPoint parent, int alpha, int beta) {
+            this.parent = parent;
+            this.alpha = new AtomicInteger(alpha);
+            this.beta = beta;
+        }
+
+        // a cutoff at any split point above also makes this one pointless
+        boolean isCancelled() {
+            return cutoff || (parent != null && parent.isCancelled());
+        }
+
+        void onResult(int score) {
+            alpha.accumulateAndGet(score, Math::max);
+            if (score >= beta) {
+                cutoff = true;
+            }
+        }
+    }
+
+    /**
+     * Searches one younger brother at a split point, on whichever thread runs the task.
+     */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private static final class SiblingSearch extends RecursiveTask<Integer> {
+
+        private final ComputerEnemy engine;
+        private final SplitPoint point;
+        private final BitBoard position;
+        private final long move;
+        private final int depth;
+        private final int ply;
+
+        SiblingSearch(ComputerEnemy engine, SplitPoint point, BitBoard position, long move, int depth, int ply) {
+            this.engine = engine;
+            this.point = point;
+            this.position = position;
+            this.move = move;
+            this.depth = depth;
+            this.ply = ply;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (point.isCancelled() || engine.isStopped()) {
+                return CANCELLED;
+            }
+            Searcher searcher = engine.currentSearcher();
+            // a thread waiting for its own tasks may run this one, so the split point is restored afterwards
+            SplitPoint outer = searcher.splitPoint;
+            searcher.splitPoint = point;
+            try {
+                SearchBoard node = new SearchBoard(position);
+                int alpha = point.alpha.get();
+                node.makeMove(move);
+                int score = searcher.searchMove(node, depth, alpha, point.beta, ply, searcher.pvs);
+                if (searcher.isAborted()) {
+                    return CANCELLED;
+                }
+                point.onResult(score);
+                return score;
+            } finally {
+                searcher.splitPoint = outer;
+            }
+        }
+    }
+
+    /**
+     * Static score of a position for the side to move. The piece-square evaluation is symmetric and read for the
+     * side to move directly. The other heuristics are computed for the ComputerEnemy's player and negated for the
+     * opponent, which keeps asymmetric heuristics consistent with a plain minimax search.
+     * <p>
+     * Scores are looked up in the evaluation cache first; the key includes the side to move, so a cached score is
+     * for the side to move too.
+     */
+    private int evaluate(SearchBoard node, int ply) {
+        evaluations++;
+        StartPlayer side = node.getTurn();
+        if (node.pieceCount(side) == 0) {
+            return -(ComputerEnemy.WIN - ply);
+        }
+        if (node.pieceCount(side.getOpposite()) == 0) {
+            return ComputerEnemy.WIN - ply;
+        }
+        if (evaluationCache == null) {
+            return staticScore(node, side);
+        }
+        int score = evaluationCache.probe(node.getKey());
+        if (score != EvaluationCache.MISS) {
+            evaluationCacheHits++;
+            return score;
+        }
+        evaluationCacheMisses++;
+        score = staticScore(node, side);
+        evaluationCache.store(node.getKey(), score);
+        return score;
+    }
+
+    private int staticScore(SearchBoard node, StartPlayer side) {
+        if (pieceSquare) {
+            return node.evaluate(side);
+        }
+        int score = node.computeHeuristic(player);
+        return side == player ? score : -score;
+    }
+
+    // tablebase distances count plies from the node
+    private static int fromTablebase(int value, int ply) {
+        if (Tablebase.isWin(value)) {
+            return ComputerEnemy.WIN - ply - Tablebase.distance(value);
+        }
+        if (Tablebase.isLoss(value)) {
+            return -(ComputerEnemy.WIN - ply - Tablebase.distance(value));
+        }
+        return 0;
+    }
+
+    // wins and losses are stored relative to the node, not to the root
+    private static int toTable(int score, int ply) {
+        if (score > WIN_BOUND) {
+            return score + ply;
+        }
+        if (score < -WIN_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > WIN_BOUND) {
+            return score - ply;
+        }
+        if (score < -WIN_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+}
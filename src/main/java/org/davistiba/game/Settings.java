@@ -4,6 +4,24 @@ public class Settings {
     public static boolean FORCETAKES = true; //
     public static StartPlayer FIRSTMOVE = StartPlayer.HUMAN; // who moves first
     public static int AI_DEPTH = 7;
+    public static long AI_MOVE_TIME_MS = 1500; // time budget per ComputerEnemy move, 0 for a fixed-depth search
     public static final int UNDO_MEMORY = 20;
-    public static int HEURISTIC = 1;
+    public static int HEURISTIC = 3; // 1 and 2 count pieces, 3 is the piece-square evaluation
+    public static int HASH_SIZE_MB = 16; // transposition table size, 0 to disable
+    public static int EVAL_CACHE_MB = 2; // evaluation cache size, 0 to disable
+    public static int AI_THREADS = Runtime.getRuntime().availableProcessors(); // search threads
+    public static boolean LAZY_SMP = true; // threads share the tree through the hash table, false to split root moves
+    public static boolean PONDER = true; // ComputerEnemy searches on the human's time
+    public static boolean SPLIT_POINTS = true; // without Lazy SMP, also search siblings below the root in parallel
+    public static String OPENING_BOOK = "opening.book"; // book of ComputerEnemy opening moves, null to disable
+    public static String TABLEBASE_DIR = "tablebases"; // kings-only endgame tables, null to disable
+    public static boolean PVS = true; // null-window searches for all but the first move, false for plain alpha-beta
+    public static boolean QUIESCENCE = true; // play out pending captures before evaluating at the depth limit
+    public static boolean LMR = true; // late quiet moves searched less deep, again at full depth if one beats alpha
+    public static boolean FUTILITY = true; // quiet moves at the frontier skipped when they cannot reach alpha
+    public static int FUTILITY_MARGIN = 150; // most a quiet move at the frontier gains, in hundredths of a man
+    public static boolean PROBCUT = true; // deep nodes cut off when a shallow search clears beta by a margin
+    public static int PROBCUT_MARGIN = 100; // how far the shallow search must clear beta, in hundredths of a man
+    public static int ASPIRATION_WINDOW = 25; // first root move searched within this of the last score, 0 to disable
+    public static boolean JMX_METRICS = true; // publish search metrics as MXBeans
 }
\ No newline at end of file
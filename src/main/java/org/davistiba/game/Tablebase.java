@@ -0,0 +1,211 @@
+package org.davistiba.game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Endgame tablebases for positions with kings only, as written by {@link TablebaseGenerator}.
+ * <p>
+ * Positions are stored from the side to move's point of view, as if it were the AI; positions with the human to
+ * move are turned half way round the board first. Kings move alike for both players except that a multi-jump ends
+ * on the mover's promotion row, so this is all a position depends on. There is one file per material signature (kings of the side to move, kings of the
+ * opponent), holding one byte per position: 0 for a draw, n &gt; 0 for a win in n plies and -(n + 1) for a loss
+ * in n plies. Each side's kings are ranked as a combination of the 50 dark squares, so the order of identical
+ * pieces does not matter. Files are memory-mapped, so a probe is a single absolute read from the mapped buffer.
+ * <p>
+ * The tables are generated with forced takes. A multi-jump is one move, so it counts as one ply.
+ */
+public final class Tablebase {
+
+    public static final int DARK_SQUARES = 50;
+    // largest number of kings per side a table can hold
+    public static final int MAX_KINGS = 5;
+    // probe result for material without a table
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+    // distances are stored in a signed byte
+    static final int MAX_DISTANCE = 127;
+
+    // binomial coefficients C(n, k)
+    private static final int[][] BINOMIAL = new int[DARK_SQUARES + 1][MAX_KINGS + 1];
+    // dark square index of each bit, -1 for the unused bits between rows
+    private static final int[] BIT_TO_DARK = new int[BitBoard.NUM_BITS];
+    private static final int[] DARK_TO_BIT = new int[DARK_SQUARES];
+
+    static {
+        for (int n = 0; n <= DARK_SQUARES; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= MAX_KINGS && k <= n; k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k < n ? BINOMIAL[n - 1][k] : 0);
+            }
+        }
+        int dark = 0;
+        for (int bit = 0; bit < BitBoard.NUM_BITS; bit++) {
+            if ((BitBoard.VALID & (1L << bit)) != 0) {
+                BIT_TO_DARK[bit] = dark;
+                DARK_TO_BIT[dark++] = bit;
+            } else {
+                BIT_TO_DARK[bit] = -1;
+            }
+        }
+    }
+
+    private static String loadedDirectory;
+    private static Tablebase loaded;
+
+    // tables indexed by [kings of the side to move][kings of the opponent], null where missing
+    private final MappedByteBuffer[][] tables = new MappedByteBuffer[MAX_KINGS + 1][MAX_KINGS + 1];
+
+    private Tablebase() {
+    }
+
+    /**
+     * Gets the tablebase configured in {@link Settings#TABLEBASE_DIR}, loading it on first use.
+     *
+     * @return tablebase, or null if disabled, missing, or not valid for the current rules
+     */
+    static synchronized Tablebase forSettings() {
+        String directory = Settings.TABLEBASE_DIR;
+        if (directory == null || !Settings.FORCETAKES) {
+            return null;
+        }
+        if (!directory.equals(loadedDirectory)) {
+            loadedDirectory = directory;
+            loaded = open(Paths.get(directory));
+        }
+        return loaded;
+    }
+
+    /**
+     * Maps all tables found in a directory.
+     *
+     * @param directory directory holding the table files
+     * @return tablebase, or null if the directory holds no tables
+     */
+    public static Tablebase open(Path directory) {
+        Tablebase tablebase = new Tablebase();
+        boolean found = false;
+        for (int own = 1; own <= MAX_KINGS; own++) {
+            for (int opponent = 1; opponent <= MAX_KINGS; opponent++) {
+                Path file = directory.resolve(fileName(own, opponent));
+                if (Files.isRegularFile(file)) {
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                        tablebase.tables[own][opponent] = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Cannot map tablebase file " + file, e);
+                    }
+                    // read the pages in now rather than during the search
+                    tablebase.tables[own][opponent].load();
+                    found = true;
+                }
+            }
+        }
+        return found ? tablebase : null;
+    }
+
+    /**
+     * Looks up a position with kings only.
+     *
+     * @param side          side to move
+     * @param ownKings      kings of the side to move
+     * @param opponentKings kings of the opponent
+     * @return stored value, or {@link #NOT_FOUND} if there is no table for the material
+     */
+    public int probe(StartPlayer side, long ownKings, long opponentKings) {
+        int own = Long.bitCount(ownKings);
+        int opponent = Long.bitCount(opponentKings);
+        if (own == 0 || opponent == 0 || own > MAX_KINGS || opponent > MAX_KINGS) {
+            return NOT_FOUND;
+        }
+        MappedByteBuffer table = tables[own][opponent];
+        if (table == null) {
+            return NOT_FOUND;
+        }
+        if (side == StartPlayer.HUMAN) {
+            ownKings = BitBoard.rotate(ownKings);
+            opponentKings = BitBoard.rotate(opponentKings);
+        }
+        return table.get(index(ownKings, opponentKings, opponent));
+    }
+
+    static String fileName(int ownKings, int opponentKings) {
+        return "kings-" + ownKings + "-" + opponentKings + ".tb";
+    }
+
+    /**
+     * Number of entries in the table for a material signature, including unused ones for overlapping squares.
+     */
+    static int size(int ownKings, int opponentKings) {
+        return BINOMIAL[DARK_SQUARES][ownKings] * BINOMIAL[DARK_SQUARES][opponentKings];
+    }
+
+    static int index(long ownKings, long opponentKings, int opponentCount) {
+        return rank(ownKings) * BINOMIAL[DARK_SQUARES][opponentCount] + rank(opponentKings);
+    }
+
+    static int combinations(int kings) {
+        return BINOMIAL[DARK_SQUARES][kings];
+    }
+
+    /**
+     * Ranks a set of squares in the combinatorial number system.
+     */
+    static int rank(long kings) {
+        int rank = 0;
+        int i = 1;
+        while (kings != 0) {
+            rank += BINOMIAL[BIT_TO_DARK[Long.numberOfTrailingZeros(kings)]][i++];
+            kings &= kings - 1;
+        }
+        return rank;
+    }
+
+    /**
+     * Inverse of {@link #rank(long)}.
+     *
+     * @param rank  rank of the set
+     * @param kings number of squares in the set
+     * @return mask of the squares
+     */
+    static long unrank(int rank, int kings) {
+        long mask = 0;
+        int dark = DARK_SQUARES - 1;
+        for (int i = kings; i >= 1; i--) {
+            while (BINOMIAL[dark][i] > rank) {
+                dark--;
+            }
+            rank -= BINOMIAL[dark][i];
+            mask |= 1L << DARK_TO_BIT[dark];
+            dark--;
+        }
+        return mask;
+    }
+
+    public static boolean isWin(int value) {
+        return value > 0;
+    }
+
+    public static boolean isLoss(int value) {
+        return value < 0;
+    }
+
+    /**
+     * Number of plies to the end of the game along the stored line, 0 for a draw.
+     */
+    public static int distance(int value) {
+        return value > 0 ? value : value < 0 ? -value - 1 : 0;
+    }
+
+    static byte win(int distance) {
+        return (byte) Math.min(distance, MAX_DISTANCE);
+    }
+
+    static byte loss(int distance) {
+        return (byte) -(Math.min(distance, MAX_DISTANCE) + 1);
+    }
+}
@@ -0,0 +1,304 @@
+package org.davistiba.game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Builds the {@link Tablebase} files for kings-only endgames.
+ * <p>
+ * Material is solved from the fewest pieces up. Every capture leads to material with fewer pieces, which is
+ * already solved, so only the quiet moves between the tables (s, o) and (o, s) of the same material remain. Those
+ * two tables are solved together by repeated passes over all of their positions, in parallel: a position is
+ * settled as a win once a move reaches a position settled as lost for the opponent, and as a loss once every move
+ * reaches a position settled as won for the opponent. Positions still open when a pass settles nothing are draws.
+ * Each pass only looks at positions settled by earlier passes, so the result does not depend on thread timing.
+ * The side to move always plays as the AI, so the board is turned half way round after every move.
+ * <p>
+ * Materials are solved one at a time, so only one pair of working tables is in memory. A working table holds the
+ * value byte of each position and two bits, one for positions settled by earlier passes and one for those settled
+ * in the current pass. Solved tables are kept for the larger material that captures into them, except those with
+ * the largest number of pieces. Up to 5 pieces this peaks at about 64 MB, up to 6 pieces at about 780 MB, see
+ * {@link #peakMemory(int)}.
+ */
+public final class TablebaseGenerator {
+
+    // value of a position not settled yet, outside the range of stored values
+    private static final int OPEN = Integer.MIN_VALUE;
+
+    private static final Logger logger = Logger.getLogger(String.valueOf(TablebaseGenerator.class));
+
+    // solved tables by [kings of the side to move][kings of the opponent]
+    private final byte[][][] solved = new byte[Tablebase.MAX_KINGS + 1][Tablebase.MAX_KINGS + 1][];
+    // tables being solved, same indexing
+    private final WorkingTable[][] working = new WorkingTable[Tablebase.MAX_KINGS + 1][Tablebase.MAX_KINGS + 1];
+
+    private TablebaseGenerator() {
+    }
+
+    /**
+     * Generates the tables into a directory.
+     *
+     * @param args directory (default {@link Settings#TABLEBASE_DIR}) and largest number of pieces (default 4)
+     */
+    public static void main(String[] args) {
+        Path directory = Paths.get(args.length > 0 ? args[0] : Settings.TABLEBASE_DIR);
+        int maxPieces = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        generate(directory, maxPieces);
+    }
+
+    /**
+     * Solves all kings-only material up to a number of pieces and writes one file per material signature.
+     *
+     * @param directory directory for the table files, created if missing
+     * @param maxPieces largest number of pieces on the board
+     */
+    public static void generate(Path directory, int maxPieces) {
+        if (maxPieces < 2 || maxPieces > Tablebase.MAX_KINGS + 1) {
+            throw new IllegalArgumentException("Tables hold 2 to " + (Tablebase.MAX_KINGS + 1) + " pieces");
+        }
+        if (!Settings.FORCETAKES) {
+            throw new IllegalStateException("Tables are generated with forced takes");
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.info(String.format("Solving up to %d pieces needs about %d MB", maxPieces,
+                peakMemory(maxPieces) >> 20));
+        TablebaseGenerator generator = new TablebaseGenerator();
+        for (int pieces = 2; pieces <= maxPieces; pieces++) {
+            // (s, o) and (o, s) only depend on each other and on smaller material
+            for (int[] material : materials(pieces)) {
+                generator.solve(directory, material[0], material[1], pieces < maxPieces);
+            }
+        }
+    }
+
+    /**
+     * Material signatures (s, o) with s &lt;= o for a number of pieces; (o, s) is solved together with each.
+     */
+    private static List<int[]> materials(int pieces) {
+        List<int[]> materials = new ArrayList<>();
+        for (int own = Math.max(1, pieces - Tablebase.MAX_KINGS); own <= pieces / 2; own++) {
+            materials.add(new int[]{own, pieces - own});
+        }
+        return materials;
+    }
+
+    /**
+     * Largest number of bytes held while solving up to a number of pieces: the solved tables with fewer pieces
+     * and the largest pair of working tables.
+     *
+     * @param maxPieces largest number of pieces on the board
+     * @return bytes of table data, not counting the JVM's own overhead
+     */
+    static long peakMemory(int maxPieces) {
+        long solved = 0;
+        for (int pieces = 2; pieces < maxPieces; pieces++) {
+            for (int[] material : materials(pieces)) {
+                solved += pairSize(material[0], material[1]);
+            }
+        }
+        long largestPair = 0;
+        for (int[] material : materials(maxPieces)) {
+            largestPair = Math.max(largestPair, pairSize(material[0], material[1]));
+        }
+        // a byte and two bits per position
+        return solved + largestPair + largestPair / 4;
+    }
+
+    private static long pairSize(int own, int opponent) {
+        return (long) Tablebase.size(own, opponent) + (own == opponent ? 0 : Tablebase.size(opponent, own));
+    }
+
+    /**
+     * Solves the tables (own, opponent) and (opponent, own) and writes them.
+     *
+     * @param keep keep the solved tables for larger material?
+     */
+    private void solve(Path directory, int own, int opponent, boolean keep) {
+        long start = System.nanoTime();
+        working[own][opponent] = new WorkingTable(Tablebase.size(own, opponent));
+        working[opponent][own] = own == opponent ? working[own][opponent]
+                : new WorkingTable(Tablebase.size(opponent, own));
+        int pass = 1;
+        AtomicInteger settled = new AtomicInteger();
+        do {
+            settled.set(0);
+            settle(own, opponent, settled);
+            if (own != opponent) {
+                settle(opponent, own, settled);
+            }
+            working[own][opponent].endPass();
+            working[opponent][own].endPass();
+            pass++;
+        } while (settled.get() > 0);
+
+        write(directory, own, opponent, keep);
+        if (own != opponent) {
+            write(directory, opponent, own, keep);
+        }
+        logger.info(String.format("Solved %d-%d kings in %d passes and %d ms", own, opponent, pass - 1,
+                (System.nanoTime() - start) / 1_000_000));
+    }
+
+    private void settle(int own, int opponent, AtomicInteger settled) {
+        WorkingTable table = working[own][opponent];
+        int opponentCombinations = Tablebase.combinations(opponent);
+        IntStream.range(0, table.values.length).parallel().forEach(i -> {
+            if (table.isSettled(i)) {
+                return;
+            }
+            long ownKings = Tablebase.unrank(i / opponentCombinations, own);
+            long opponentKings = Tablebase.unrank(i % opponentCombinations, opponent);
+            if ((ownKings & opponentKings) != 0) {
+                // not a position, left as a draw
+                table.settle(i, 0);
+                return;
+            }
+            int value = evaluate(ownKings, opponentKings);
+            if (value != OPEN) {
+                table.settle(i, value);
+                settled.incrementAndGet();
+            }
+        });
+    }
+
+    private void write(Path directory, int own, int opponent, boolean keep) {
+        // positions never settled are still 0, a draw
+        byte[] values = working[own][opponent].values;
+        try {
+            Files.write(directory.resolve(Tablebase.fileName(own, opponent)), values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        working[own][opponent] = null;
+        solved[own][opponent] = keep ? values : null;
+    }
+
+    /**
+     * Values a position from the moves of the side to move, using only positions settled before this pass.
+     *
+     * @param ownKings      kings of the side to move
+     * @param opponentKings kings of the opponent
+     * @return stored value, or {@link #OPEN} if not settled yet
+     */
+    private int evaluate(long ownKings, long opponentKings) {
+        long empty = BitBoard.VALID & ~(ownKings | opponentKings);
+        MoveList moves = new MoveList();
+        MoveGenerator.generate(StartPlayer.AI, 0, ownKings, opponentKings, empty, moves);
+        if (moves.isEmpty()) {
+            // a player who cannot move loses
+            return Tablebase.loss(0);
+        }
+        int bestWin = Integer.MAX_VALUE;
+        int longestLoss = -1;
+        boolean open = false;
+        boolean draw = false;
+        for (int i = 0; i < moves.size(); i++) {
+            long move = moves.get(i);
+            // a king that circles back to its origin has not moved
+            long moved = ownKings & ~(1L << Move.from(move)) | (1L << Move.to(move));
+            long remaining = opponentKings & ~Move.captures(move);
+            int value = remaining == 0 ? Tablebase.win(1)
+                    : negate(lookup(BitBoard.rotate(remaining), BitBoard.rotate(moved)));
+            if (value == OPEN) {
+                open = true;
+            } else if (Tablebase.isWin(value)) {
+                bestWin = Math.min(bestWin, Tablebase.distance(value));
+            } else if (Tablebase.isLoss(value)) {
+                longestLoss = Math.max(longestLoss, Tablebase.distance(value));
+            } else {
+                draw = true;
+            }
+        }
+        if (bestWin != Integer.MAX_VALUE) {
+            return Tablebase.win(bestWin);
+        }
+        if (open || draw) {
+            return OPEN;
+        }
+        return Tablebase.loss(longestLoss);
+    }
+
+    /**
+     * Value of a position for its side to move, {@link #OPEN} if not settled before this pass.
+     */
+    private int lookup(long ownKings, long opponentKings) {
+        int own = Long.bitCount(ownKings);
+        int opponent = Long.bitCount(opponentKings);
+        int index = Tablebase.index(ownKings, opponentKings, opponent);
+        byte[] table = solved[own][opponent];
+        if (table != null) {
+            return table[index];
+        }
+        WorkingTable entries = working[own][opponent];
+        return entries.isSettled(index) ? entries.values[index] : OPEN;
+    }
+
+    /**
+     * Value for the player who moved into a position, from the value for the player to move there.
+     */
+    private static int negate(int value) {
+        if (value == OPEN || value == 0) {
+            return value;
+        }
+        int distance = Tablebase.distance(value) + 1;
+        return Tablebase.isWin(value) ? Tablebase.loss(distance) : Tablebase.win(distance);
+    }
+
+    /**
+     * Table being solved. Values are written by the pass that settles them but only read once that pass is over,
+     * so a pass sees the same table whatever the thread timing.
+     */
+    private static final class WorkingTable {
+
+        // stored values, 0 until settled
+        final byte[] values;
+        // positions settled by earlier passes, only changed between passes
+        private final long[] settled;
+        // positions settled in the current pass, written by several threads at once
+        private final AtomicLongArray fresh;
+
+        WorkingTable(int size) {
+            values = new byte[size];
+            settled = new long[(size + 63) >>> 6];
+            fresh = new AtomicLongArray(settled.length);
+        }
+
+        /**
+         * Was the position settled by an earlier pass?
+         */
+        boolean isSettled(int index) {
+            return (settled[index >>> 6] & 1L << index) != 0;
+        }
+
+        void settle(int index, int value) {
+            values[index] = (byte) value;
+            long bit = 1L << index;
+            long word;
+            do {
+                word = fresh.get(index >>> 6);
+            } while (!fresh.compareAndSet(index >>> 6, word, word | bit));
+        }
+
+        /**
+         * Makes the positions settled in this pass visible to the next one.
+         */
+        void endPass() {
+            for (int i = 0; i < settled.length; i++) {
+                settled[i] |= fresh.getAndSet(i, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.davistiba.game;
+
+/**
+ * Decides how long the ComputerEnemy may think about a move.
+ * <p>
+ * The search aims to finish within the move budget (the optimum time). A new iteration is only started while less
+ * than half of the optimum time is used, since the next iteration usually takes longer than all previous ones
+ * together, and a running iteration is abandoned once the optimum time is used up. When the best move changes
+ * between iterations the optimum time is extended, but never beyond twice the budget.
+ */
+public final class TimeManager {
+
+    private static final double INSTABILITY_FACTOR = 1.5;
+    private static final int MAXIMUM_FACTOR = 2;
+
+    private final long maximumNanos;
+    private volatile long optimumNanos;
+    private final long startNanos;
+
+    /**
+     * @param budgetMs time budget for the move in milliseconds
+     */
+    public TimeManager(long budgetMs) {
+        this.optimumNanos = budgetMs * 1_000_000;
+        this.maximumNanos = optimumNanos * MAXIMUM_FACTOR;
+        this.startNanos = System.nanoTime();
+    }
+
+    public long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Is there enough time left to start another iteration?
+     *
+     * @return true if a deeper iteration should be started
+     */
+    public boolean canStartIteration() {
+        return System.nanoTime() - startNanos < optimumNanos / 2;
+    }
+
+    /**
+     * Must the running iteration be abandoned?
+     *
+     * @return true once the optimum time is used up
+     */
+    public boolean isOutOfTime() {
+        return System.nanoTime() - startNanos >= optimumNanos;
+    }
+
+    /**
+     * Gives the search more time because the best move changed in the last iteration.
+     */
+    public void onBestMoveChanged() {
+        optimumNanos = Math.min((long) (optimumNanos * INSTABILITY_FACTOR), maximumNanos);
+    }
+}
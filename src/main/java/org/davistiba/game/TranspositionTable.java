@@ -0,0 +1,150 @@
+package org.davistiba.game;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table for the search.
+ * <p>
+ * Each entry stores the search depth, the bound type, the score and the id of the best move found for a
+ * position, packed into a single {@code long} next to the position's Zobrist key; there are no per-entry objects.
+ * Entries are grouped in buckets of two. When a new position is stored, the bucket entry from an older search is
+ * replaced first, then the one searched to the lower depth.
+ * <p>
+ * The table is shared by the search threads without locking. The key is stored XORed with the entry, so an entry
+ * torn by two threads writing the same slot no longer matches its key and reads as a miss.
+ */
+public final class TranspositionTable {
+
+    // bound types
+    public static final int EXACT = 0;
+    public static final int LOWER = 1;
+    public static final int UPPER = 2;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_SIZE = 2;
+
+    // entry layout: move (bits 0-19), score (bits 20-43), depth (bits 44-51), bound (bits 52-53),
+    // generation (bits 54-61), valid flag (bit 63)
+    private static final int SCORE_SHIFT = 20;
+    private static final int DEPTH_SHIFT = 44;
+    private static final int BOUND_SHIFT = 52;
+    private static final int GENERATION_SHIFT = 54;
+    private static final long VALID = 1L << 63;
+    private static final int SCORE_OFFSET = 1 << 23;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int bucketMask;
+    private int generation;
+
+    /**
+     * Creates a table using at most the given amount of memory.
+     *
+     * @param sizeInMb table size in megabytes, rounded down to a power of two number of entries
+     */
+    public TranspositionTable(int sizeInMb) {
+        long entries = Math.max(BUCKET_SIZE, (long) sizeInMb * 1024 * 1024 / ENTRY_BYTES);
+        int buckets = Integer.highestOneBit((int) Math.min(entries / BUCKET_SIZE, 1 << 28));
+        this.keys = new long[buckets * BUCKET_SIZE];
+        this.entries = new long[buckets * BUCKET_SIZE];
+        this.bucketMask = buckets - 1;
+    }
+
+    /**
+     * Starts a new search: entries stored from now on are preferred over older ones.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(entries, 0);
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key Zobrist key of the position
+     * @return packed entry, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        int index = index(key);
+        for (int i = index; i < index + BUCKET_SIZE; i++) {
+            long entry = entries[i];
+            if (entry != 0 && (keys[i] ^ entry) == key) {
+                return entry;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the result of searching a position.
+     *
+     * @param key   Zobrist key of the position
+     * @param depth remaining search depth
+     * @param bound bound type of the score: {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     * @param score score of the position
+     * @param move  {@link Move#id(long) id} of the best move, 0 if none
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+        int index = index(key);
+        int victim = index;
+        for (int i = index; i < index + BUCKET_SIZE; i++) {
+            long entry = entries[i];
+            if (entry != 0 && (keys[i] ^ entry) == key) {
+                // same position: keep the old best move if the new search has none
+                if (move == 0) {
+                    move = move(entry);
+                }
+                victim = i;
+                break;
+            }
+            if (priority(entry) < priority(entries[victim])) {
+                victim = i;
+            }
+        }
+        long entry = VALID
+                | ((long) generation << GENERATION_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) Math.min(depth, 0xFF) << DEPTH_SHIFT)
+                | ((long) (score + SCORE_OFFSET) << SCORE_SHIFT)
+                | (move & 0xFFFFF);
+        keys[victim] = key ^ entry;
+        entries[victim] = entry;
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SIZE;
+    }
+
+    private int priority(long entry) {
+        if (entry == 0) {
+            return -1;
+        }
+        // entries from the current search always outrank older ones
+        int current = (int) (entry >>> GENERATION_SHIFT & 0xFF) == generation ? 0x100 : 0;
+        return current + depth(entry);
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFFF);
+    }
+
+    public static int score(long entry) {
+        return (int) (entry >>> SCORE_SHIFT & 0xFFFFFF) - SCORE_OFFSET;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT & 0xFF);
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT & 0x3);
+    }
+}
@@ -0,0 +1,62 @@
+package org.davistiba.game;
+
+import java.util.Random;
+
+/**
+ * Zobrist hashing of positions.
+ * <p>
+ * Every (piece kind, square) pair and the side to move get a random 64-bit key; the key of a position is the XOR
+ * of the keys of its features. Making a move only toggles the features it changes, so keys are maintained
+ * incrementally. The generator is seeded with a constant so that keys are stable across runs and can be stored in
+ * files.
+ */
+public final class Zobrist {
+
+    // piece kinds: player ordinal * 2 + (king ? 1 : 0)
+    private static final long[][] PIECES = new long[4][BitBoard.NUM_BITS];
+    private static final long HUMAN_TO_MOVE;
+
+    static {
+        Random random = new Random(0x5EED_C4EC_4E25L);
+        for (long[] keys : PIECES) {
+            for (int bit = 0; bit < keys.length; bit++) {
+                keys[bit] = random.nextLong();
+            }
+        }
+        HUMAN_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    static long piece(StartPlayer player, boolean king, int bit) {
+        return PIECES[player.ordinal() * 2 + (king ? 1 : 0)][bit];
+    }
+
+    static long turn(StartPlayer player) {
+        return player == StartPlayer.HUMAN ? HUMAN_TO_MOVE : 0;
+    }
+
+    /**
+     * Computes the key of a position from scratch.
+     *
+     * @return position key
+     */
+    static long compute(long aiMen, long aiKings, long humanMen, long humanKings, StartPlayer turn) {
+        long key = turn(turn);
+        key ^= compute(PIECES[0], aiMen);
+        key ^= compute(PIECES[1], aiKings);
+        key ^= compute(PIECES[2], humanMen);
+        key ^= compute(PIECES[3], humanKings);
+        return key;
+    }
+
+    private static long compute(long[] keys, long mask) {
+        long key = 0;
+        while (mask != 0) {
+            key ^= keys[Long.numberOfTrailingZeros(mask)];
+            mask &= mask - 1;
+        }
+        return key;
+    }
+}
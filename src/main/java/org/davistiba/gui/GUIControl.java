@@ -11,6 +11,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -30,6 +33,8 @@ public class GUIControl extends JFrame {
     private final HashMap<Integer, Integer> difficultyMapping;
     private final String rulesList = getRulesList();
     private final ScheduledExecutorService executor;
+    // ComputerEnemy search in progress, null if none
+    private CompletableFuture<GameState> aiSearch;
     private final Font MY_HELVETICA;
 
     private static final Logger logger = Logger.getLogger(GUIControl.class.getName());
@@ -47,6 +52,10 @@ public class GUIControl extends JFrame {
     }
 
     private void start() {
+        if (game != null) {
+            cancelAiSearch();
+            game.close();
+        }
         settingsPopup();
         game = new Game();
         possibleMoves = new ArrayList<>();
@@ -108,7 +117,8 @@ public class GUIControl extends JFrame {
         // process results
         if (result == JOptionPane.OK_OPTION) {
             Settings.AI_DEPTH = difficultyMapping.get(slider.getValue());
-            logger.info("Selected ComputerEnemy depth = " + Settings.AI_DEPTH);
+            logger.info("Selected ComputerEnemy depth = " + Settings.AI_DEPTH + ", time per move = "
+                    + Settings.AI_MOVE_TIME_MS + " ms");
             Settings.FIRSTMOVE = humanFirstRadioButton.isSelected() ? StartPlayer.HUMAN : StartPlayer.AI;
             Settings.FORCETAKES = forceTakesButton.isSelected();
         } else {
@@ -167,8 +177,17 @@ public class GUIControl extends JFrame {
      * Updates the checkerboard GUIControl based on the game state.
      */
     private void updateCheckerBoard() {
+        updateCheckerBoard(game.getState());
+    }
+
+    /**
+     * Shows a given state on the checkerboard, such as a hop of the ComputerEnemy's multi-jump.
+     *
+     * @param shown state to show
+     */
+    private void updateCheckerBoard(GameState shown) {
         checkerboardPanel.removeAll();
-        addPieces();
+        addPieces(shown);
         addSquares();
         addGhostButtons();
         checkerboardPanel.setVisible(true);
@@ -207,18 +226,15 @@ public class GUIControl extends JFrame {
 
 
     /**
-     * Add checker pieces to the GUIControl corresponding to the game state
+     * Add checker pieces to the GUIControl corresponding to a game state
      */
-    private void addPieces() {
+    private void addPieces(GameState shown) {
         GridBagConstraints c = new GridBagConstraints();
-        game.getState();
         for (int i = 0; i < GameState.NUM_SQUARES; i++) {
-            game.getState();
             c.gridx = i % GameState.SIDE_LENGTH;
-            game.getState();
             c.gridy = i / GameState.SIDE_LENGTH;
-            if (game.getState().getPiece(i) != null) {
-                PieceLogic piece = game.getState().getPiece(i);
+            if (shown.getPiece(i) != null) {
+                PieceLogic piece = shown.getPiece(i);
                 PieceModel button = new PieceModel(i, piece, this);
                 button.addActionListener(this::onPieceClick);
                 checkerboardPanel.add(button, c);
@@ -231,7 +247,7 @@ public class GUIControl extends JFrame {
      */
     private void addGhostButtons() {
         for (GameState state : possibleMoves) {
-            int newPos = state.getToPos();
+            int newPos = ghostSquare(state);
 
             ValidMoveModel button = new ValidMoveModel(state);
             button.addActionListener(this::onGhostButtonClick);
@@ -240,6 +256,29 @@ public class GUIControl extends JFrame {
     }
 
 
+    /**
+     * Square to show a possible move on: where it ends, unless another possible move ends there too, in which case
+     * it is the first square the piece lands on that the other move does not.
+     */
+    private int ghostSquare(GameState move) {
+        List<GameState> hops = null;
+        for (GameState other : possibleMoves) {
+            if (other == move || other.getToPos() != move.getToPos()) {
+                continue;
+            }
+            if (hops == null) {
+                hops = game.getState().getHops(move);
+            }
+            List<GameState> otherHops = game.getState().getHops(other);
+            for (int i = 0; i < hops.size() - 1; i++) {
+                if (i >= otherHops.size() || hops.get(i).getToPos() != otherHops.get(i).getToPos()) {
+                    return hops.get(i).getToPos();
+                }
+            }
+        }
+        return move.getToPos();
+    }
+
     /**
      * Sets up the menu bar component.
      */
@@ -306,6 +345,11 @@ public class GUIControl extends JFrame {
         if (feedback == Messages.SUCCESS) {
             updateCheckerBoard();
             aiMove();
+        } else if (feedback == Messages.AMBIGUOUS_JUMP) {
+            // let the player pick one of the jumps from the ghost buttons
+            possibleMoves = new ArrayList<>(game.getJumps(position, position + dx + GameState.SIDE_LENGTH * dy));
+            updateText(feedback.toString());
+            updateCheckerBoard();
         } else {
             updateCheckerBoard();
             logger.info(feedback.toString());
@@ -314,10 +358,15 @@ public class GUIControl extends JFrame {
 
     private void onHintClick() {
         if (!game.isGameOver()) {
-            ComputerEnemy ai = new ComputerEnemy(10, StartPlayer.HUMAN);
             helpMoves = null;
-            hintMove = ai.makeMove(this.game.getState(), StartPlayer.HUMAN);
-            updateCheckerBoard();
+            GameState position = game.getState();
+            // the hint is searched in the background and shown as soon as a first move is known
+            game.getHints().requestHint(position, hint -> SwingUtilities.invokeLater(() -> {
+                if (game.getState() == position) {
+                    hintMove = hint;
+                    updateCheckerBoard();
+                }
+            }));
         }
     }
 
@@ -373,46 +422,90 @@ public class GUIControl extends JFrame {
         if (!game.isGameOver() && game.getTurn() == StartPlayer.HUMAN) {
             hintMove = null;
             helpMoves = null;
+            game.getHints().cancel();
             ValidMoveModel button = (ValidMoveModel) actionEvent.getSource();
             game.playerMove(button.getBoardstate());
             possibleMoves = new ArrayList<>();
             updateCheckerBoard();
-            SwingUtilities.invokeLater(() -> {
+            if (game.isGameOver()) {
+                gameOverDialog();
+            } else {
                 aiMove();
-                if (game.isGameOver()) {
-                    gameOverDialog();
-                }
-            });
+            }
         }
     }
 
+    /**
+     * Starts the ComputerEnemy's search in the background, so the window stays responsive while it thinks.
+     */
     private void aiMove() {
-        // perform ComputerEnemy move
         long startTime = System.nanoTime();
-        game.aiMove();
-        // compute time taken
-        long aiMoveDurationInMs = (long) ((System.nanoTime() - startTime) / 1E6);
-        // compute necessary delay time (not less than zero)
-        long delayInMs = Math.max(0, SettingsView.AiMinPauseDurationInMs - aiMoveDurationInMs);
-        // schedule delayed update
-        executor.schedule(this::invokeAiUpdate, delayInMs, TimeUnit.MILLISECONDS);
+        CompletableFuture<GameState> search = game.findAiMove();
+        aiSearch = search;
+        search.whenComplete((newState, error) -> {
+            if (newState != null) {
+                // compute time taken
+                long aiMoveDurationInMs = (long) ((System.nanoTime() - startTime) / 1E6);
+                // compute necessary delay time (not less than zero)
+                long delayInMs = Math.max(0, SettingsView.AiMinPauseDurationInMs - aiMoveDurationInMs);
+                // schedule delayed update
+                executor.schedule(() -> invokeAiUpdate(search, newState), delayInMs, TimeUnit.MILLISECONDS);
+            } else if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                if (!(cause instanceof CancellationException)) {
+                    logger.warning("ComputerEnemy search failed: " + cause);
+                }
+            }
+        });
     }
 
     /**
-     * Update checkerboard and trigger new ComputerEnemy move if necessary
+     * Play the ComputerEnemy move, update checkerboard and trigger new ComputerEnemy move if necessary
      */
-    private void invokeAiUpdate() {
+    private void invokeAiUpdate(CompletableFuture<GameState> search, GameState newState) {
         SwingUtilities.invokeLater(() -> {
-            updateCheckerBoard();
-            if (!game.isGameOver() && game.getTurn() == StartPlayer.AI) {
-                aiMove();
-            } else if (SettingsView.hintMode) {
-                // in hint mode, display hint after ComputerEnemy move
-                onHintClick();
+            if (search == aiSearch && !search.isCancelled()) {
+                showAiHop(search, newState, game.getState().getHops(newState), 0);
             }
         });
     }
 
+    /**
+     * Shows the ComputerEnemy's multi-jump one hop at a time, then plays the whole move.
+     */
+    private void showAiHop(CompletableFuture<GameState> search, GameState newState, List<GameState> hops, int hop) {
+        // restart or undo may have cancelled the search in the meantime
+        if (search != aiSearch || search.isCancelled()) {
+            return;
+        }
+        if (hop < hops.size() - 1) {
+            updateCheckerBoard(hops.get(hop));
+            executor.schedule(() -> SwingUtilities.invokeLater(() -> showAiHop(search, newState, hops, hop + 1)),
+                    SettingsView.AiHopPauseDurationInMs, TimeUnit.MILLISECONDS);
+            return;
+        }
+        aiSearch = null;
+        game.aiMove(newState);
+        updateCheckerBoard();
+        if (game.isGameOver()) {
+            gameOverDialog();
+        } else if (SettingsView.hintMode) {
+            // in hint mode, display hint after ComputerEnemy move
+            onHintClick();
+        }
+    }
+
+    /**
+     * Cancels the ComputerEnemy's search, if any; the engine stops within milliseconds.
+     */
+    private void cancelAiSearch() {
+        if (aiSearch != null) {
+            aiSearch.cancel(false);
+            aiSearch = null;
+        }
+        game.stopThinking();
+    }
+
     /**
      * Open dialog for restarting the program.
      */
@@ -444,6 +537,8 @@ public class GUIControl extends JFrame {
                 options,
                 options[1]);
         if (n == 0) {
+            cancelAiSearch();
+            game.close();
             // close logging file
             this.dispose();
             System.exit(0);
@@ -502,9 +597,13 @@ public class GUIControl extends JFrame {
      * Undo the last move
      */
     private void onUndoClick() {
+        cancelAiSearch();
         game.undo();
         updateCheckerBoard();
-        if (SettingsView.hintMode) {
+        if (!game.isGameOver() && game.getTurn() == StartPlayer.AI) {
+            // nothing to undo yet, so the cancelled ComputerEnemy move is searched again
+            aiMove();
+        } else if (SettingsView.hintMode) {
             onHintClick();
         }
     }
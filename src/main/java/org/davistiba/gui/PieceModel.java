@@ -23,6 +23,8 @@ public class PieceModel extends JButton {
     private final PieceLogic piece;
     private static final Border YELLOW_BORDER = BorderFactory.createLineBorder(java.awt.Color.YELLOW, 2);
     private static final Border EMPTY_BORDER = BorderFactory.createEmptyBorder();
+    // scaled icons by colour ordinal * 2 + (king ? 1 : 0), read once and shared by all pieces of a kind
+    private static final ImageIcon[] ICONS = new ImageIcon[PieceColor.values().length * 2];
 
     // drag drop
     int X;
@@ -119,17 +121,25 @@ public class PieceModel extends JButton {
     }
 
     private void setCustomIcon(PieceLogic piece) {
-        BufferedImage buttonIcon = null;
         PieceColor colour = SettingsView.getColour(piece.getPlayer());
+        int kind = colour.ordinal() * 2 + (piece.isKing() ? 1 : 0);
+        if (ICONS[kind] == null) {
+            ICONS[kind] = readIcon(colour, piece.isKing());
+        }
+        this.setIcon(ICONS[kind]);
+    }
+
+    private static ImageIcon readIcon(PieceColor colour, boolean king) {
+        BufferedImage buttonIcon;
         try {
             if (colour == PieceColor.BLACK) {
-                if (piece.isKing()) {
+                if (king) {
                     buttonIcon = ImageIO.read(getImageResource("images/blackking.png"));
                 } else {
                     buttonIcon = ImageIO.read(getImageResource("images/blackchecker.gif"));
                 }
             } else {
-                if (piece.isKing()) {
+                if (king) {
                     buttonIcon = ImageIO.read(getImageResource("images/whiteking.png"));
                 } else {
                     buttonIcon = ImageIO.read(getImageResource("images/whitechecker.gif"));
@@ -139,11 +149,11 @@ public class PieceModel extends JButton {
             throw new RuntimeException("Image files missing! Check 'resources' folder", e);
         }
 
-        if (buttonIcon != null) {
-            Image resized = buttonIcon.getScaledInstance(SettingsView.checkerWidth, SettingsView.checkerHeight, Image.SCALE_DEFAULT);
-            ImageIcon icon = new ImageIcon(resized);
-            this.setIcon(icon);
+        if (buttonIcon == null) {
+            return null;
         }
+        Image resized = buttonIcon.getScaledInstance(SettingsView.checkerWidth, SettingsView.checkerHeight, Image.SCALE_DEFAULT);
+        return new ImageIcon(resized);
     }
 
 }
@@ -9,6 +9,7 @@ public class SettingsView {
     public static boolean hintMode = false;
     public static boolean dragDrop = false;
     public static int AiMinPauseDurationInMs = 800;
+    public static int AiHopPauseDurationInMs = 400; // pause between the hops of a ComputerEnemy multi-jump
     public static int squareSize = 80;
     public static int checkerWidth = 5 * squareSize / 6;
     public static int checkerHeight = 5 * squareSize / 6;
@@ -0,0 +1,343 @@
+package org.davistiba.game;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class ComputerEnemyTest {
+
+    private final StartPlayer firstMove = Settings.FIRSTMOVE;
+    private final int threads = Settings.AI_THREADS;
+    private final boolean lazySmp = Settings.LAZY_SMP;
+    private final boolean splitPoints = Settings.SPLIT_POINTS;
+    private final boolean pvs = Settings.PVS;
+    private final int aspirationWindow = Settings.ASPIRATION_WINDOW;
+    private final boolean quiescence = Settings.QUIESCENCE;
+    private final int heuristic = Settings.HEURISTIC;
+    private final boolean lmr = Settings.LMR;
+    private final boolean futility = Settings.FUTILITY;
+    private final boolean probCut = Settings.PROBCUT;
+    // engines created by a test, closed after it
+    private final List<ComputerEnemy> engines = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Settings.FIRSTMOVE = StartPlayer.HUMAN;
+    }
+
+    @After
+    public void closeEngines() {
+        for (ComputerEnemy engine : engines) {
+            engine.close();
+        }
+    }
+
+    @After
+    public void restoreSettings() {
+        Settings.FIRSTMOVE = firstMove;
+        Settings.AI_THREADS = threads;
+        Settings.LAZY_SMP = lazySmp;
+        Settings.SPLIT_POINTS = splitPoints;
+        Settings.PVS = pvs;
+        Settings.ASPIRATION_WINDOW = aspirationWindow;
+        Settings.QUIESCENCE = quiescence;
+        Settings.HEURISTIC = heuristic;
+        setSelectivity(lmr, futility, probCut);
+    }
+
+    private ComputerEnemy engine(ComputerEnemy engine) {
+        engines.add(engine);
+        return engine;
+    }
+
+    private static void setSelectivity(boolean lmr, boolean futility, boolean probCut) {
+        Settings.LMR = lmr;
+        Settings.FUTILITY = futility;
+        Settings.PROBCUT = probCut;
+    }
+
+    /**
+     * Plays a few random moves from the initial position, so the AI is to move in a middlegame position.
+     */
+    static GameState randomPosition(long seed, int plies) {
+        Random random = new Random(seed);
+        GameState state = GameState.initialState();
+        for (int i = 0; i < plies || state.getTurn() != StartPlayer.AI; i++) {
+            ArrayList<GameState> successors = state.getSuccessors();
+            state = successors.get(random.nextInt(successors.size()));
+        }
+        return state;
+    }
+
+    @Test
+    public void test_fixedDepthReturnsLegalMove() {
+        GameState state = randomPosition(4, 10);
+        GameState next = engine(new ComputerEnemy(4, StartPlayer.AI)).makeMove(state, StartPlayer.AI);
+        Assert.assertTrue(state.getSuccessors().contains(next));
+    }
+
+    @Test
+    public void test_enginesWithDifferentThreadCountsKeepTheirPools() {
+        GameState state = randomPosition(5, 12);
+        ComputerEnemy timed = engine(new ComputerEnemy(64, 300, StartPlayer.AI, null, new HistoryTable(), 2,
+                Thread.NORM_PRIORITY));
+        ComputerEnemy other = engine(new ComputerEnemy(4, 0, StartPlayer.AI, null, new HistoryTable(), 3,
+                Thread.NORM_PRIORITY));
+        CompletableFuture<GameState> search = timed.makeMoveAsync(state, StartPlayer.AI);
+        other.makeMove(state, StartPlayer.AI);
+        // the running search's threads were not shut down by the other engine
+        Assert.assertTrue(state.getSuccessors().contains(search.join()));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void test_closedEngineRejectsSearches() {
+        GameState state = randomPosition(4, 10);
+        ComputerEnemy ai = engine(new ComputerEnemy(2, StartPlayer.AI));
+        ai.makeMove(state, StartPlayer.AI);
+        ai.close();
+        ai.makeMoveAsync(state, StartPlayer.AI);
+    }
+
+    @Test
+    public void test_timedSearchRespectsBudget() {
+        GameState state = randomPosition(5, 12);
+        ComputerEnemy ai = engine(new ComputerEnemy(64, 200, StartPlayer.AI, new TranspositionTable(4)));
+        long start = System.nanoTime();
+        GameState next = ai.makeMove(state, StartPlayer.AI);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        Assert.assertTrue(state.getSuccessors().contains(next));
+        // the clock, not the depth limit, ended the search
+        Assert.assertTrue(ai.getStatistics().getDepth() < 64);
+        // the optimum time may be extended up to twice the budget; the bound only catches a clock that is ignored
+        Assert.assertTrue("search took " + elapsedMs + " ms", elapsedMs < 20 * 200);
+    }
+
+    @Test
+    public void test_parallelSearchPlaysBestMove() {
+        GameState state = randomPosition(5, 12);
+        int depth = 5;
+        setSelectivity(false, false, false);
+        ComputerEnemy ai = engine(new ComputerEnemy(depth, StartPlayer.AI, null));
+
+        // full-window scores of every root move
+        Searcher searcher = new Searcher(ai, StartPlayer.AI, null);
+        SearchBoard board = new SearchBoard(state.getBoard());
+        MoveList moves = new MoveList();
+        board.generateMoves(moves);
+        int best = -ComputerEnemy.INFINITY;
+        int[] scores = new int[moves.size()];
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            scores[i] = searcher.score(board, depth, -ComputerEnemy.INFINITY, ComputerEnemy.INFINITY, 1);
+            board.unmakeMove();
+            best = Math.max(best, scores[i]);
+        }
+        ArrayList<GameState> bestStates = new ArrayList<>();
+        for (int i = 0; i < moves.size(); i++) {
+            if (scores[i] == best) {
+                bestStates.add(new GameState(state.getBoard().play(moves.get(i))));
+            }
+        }
+
+        Settings.AI_THREADS = 4;
+        Settings.LAZY_SMP = false;
+        for (boolean splitPoints : new boolean[]{false, true}) {
+            Settings.SPLIT_POINTS = splitPoints;
+            for (int i = 0; i < 5; i++) {
+                Assert.assertTrue(bestStates.contains(ai.makeMove(state, StartPlayer.AI)));
+            }
+        }
+    }
+
+    @Test
+    public void test_pvsScoresEqualAlphaBeta() {
+        Settings.AI_THREADS = 1;
+        setSelectivity(false, false, false);
+        for (int seed = 1; seed <= 4; seed++) {
+            GameState state = randomPosition(seed, 12);
+            SearchBoard board = new SearchBoard(state.getBoard());
+            MoveList moves = new MoveList();
+            board.generateMoves(moves);
+            if (moves.size() < 2) {
+                // a forced move is played without a search
+                continue;
+            }
+            for (int depth = 2; depth <= 6; depth++) {
+                Settings.PVS = false;
+                Settings.ASPIRATION_WINDOW = 0;
+                int[] expected = rootScores(board, moves, depth);
+                ComputerEnemy alphaBeta = engine(new ComputerEnemy(depth, StartPlayer.AI, null));
+                alphaBeta.makeMove(state, StartPlayer.AI);
+
+                Settings.PVS = true;
+                Settings.ASPIRATION_WINDOW = 1;
+                Assert.assertArrayEquals(expected, rootScores(board, moves, depth));
+                ComputerEnemy pvs = engine(new ComputerEnemy(depth, StartPlayer.AI, null));
+                pvs.makeMove(state, StartPlayer.AI);
+                Assert.assertEquals(alphaBeta.getStatistics().getScore(), pvs.getStatistics().getScore());
+            }
+        }
+    }
+
+    // full-window scores of every root move, without a transposition table
+    private int[] rootScores(SearchBoard board, MoveList moves, int depth) {
+        Searcher searcher = new Searcher(engine(new ComputerEnemy(depth, StartPlayer.AI, null)), StartPlayer.AI, null);
+        int[] scores = new int[moves.size()];
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            scores[i] = searcher.score(board, depth, -ComputerEnemy.INFINITY, ComputerEnemy.INFINITY, 1);
+            board.unmakeMove();
+        }
+        return scores;
+    }
+
+    @Test
+    public void test_evaluationCacheIsUsed() {
+        Settings.AI_THREADS = 1;
+        GameState state = randomPosition(5, 12);
+        ComputerEnemy ai = engine(new ComputerEnemy(6, StartPlayer.AI, new TranspositionTable(4)));
+        Assert.assertNotNull(ai.getEvaluationCache());
+        ai.makeMove(state, StartPlayer.AI);
+        SearchStatistics statistics = ai.getStatistics();
+        Assert.assertTrue(statistics.getEvaluationCacheHits() > 0);
+        Assert.assertTrue(statistics.getEvaluationCacheMisses() > 0);
+    }
+
+    @Test
+    public void test_selectiveSearchSwitches() {
+        Settings.AI_THREADS = 1;
+        GameState state = randomPosition(5, 12);
+        setSelectivity(false, false, false);
+        ComputerEnemy exact = engine(new ComputerEnemy(7, StartPlayer.AI, new TranspositionTable(4)));
+        exact.makeMove(state, StartPlayer.AI);
+        SearchStatistics full = exact.getStatistics();
+        Assert.assertEquals(0, full.getReductions());
+        Assert.assertEquals(0, full.getFutilityPrunes());
+        Assert.assertEquals(0, full.getProbCutTries());
+
+        setSelectivity(true, true, true);
+        ComputerEnemy selective = engine(new ComputerEnemy(7, StartPlayer.AI, new TranspositionTable(4)));
+        GameState next = selective.makeMove(state, StartPlayer.AI);
+        SearchStatistics pruned = selective.getStatistics();
+        Assert.assertTrue(state.getSuccessors().contains(next));
+        Assert.assertTrue(pruned.getReductions() > pruned.getReductionResearches());
+        Assert.assertTrue(pruned.getFutilityPrunes() > 0);
+        Assert.assertTrue(pruned.getProbCutTries() >= pruned.getProbCuts());
+        Assert.assertTrue(pruned.getProbCutTries() > 0);
+        Assert.assertTrue(pruned.getNodes() < full.getNodes());
+    }
+
+    @Test
+    public void test_quiescenceSeesHangingPiece() {
+        // the AI man on 18 can step to 22 or 23; on 23 the human man on 29 takes it
+        GameState state = Perft.parse(".a......../........../........../....a...../........../......h.../"
+                + "........../........../........../........h. a");
+        SearchBoard board = new SearchBoard(state.getBoard());
+        long safe = Move.encode(BitBoard.toBit(34), BitBoard.toBit(43), 0, false);
+        long hanging = Move.encode(BitBoard.toBit(34), BitBoard.toBit(45), 0, false);
+        // scores count pieces
+        Settings.HEURISTIC = 1;
+        int[] expected = {0, 0, 0, -1};
+        int i = 0;
+        for (boolean resolve : new boolean[]{false, true}) {
+            Settings.QUIESCENCE = resolve;
+            Searcher searcher = new Searcher(engine(new ComputerEnemy(0, StartPlayer.AI, null)), StartPlayer.AI, null);
+            for (long move : new long[]{safe, hanging}) {
+                board.makeMove(move);
+                Assert.assertEquals(expected[i++],
+                        searcher.score(board, 0, -ComputerEnemy.INFINITY, ComputerEnemy.INFINITY, 1));
+                board.unmakeMove();
+            }
+        }
+    }
+
+    @Test
+    public void test_quiescencePlaysMultiJump() {
+        // the AI can take up to four men with 8x17x28x37x46
+        GameState state = Perft.parse(Perft.REFERENCES[2].position);
+        SearchBoard board = new SearchBoard(state.getBoard());
+
+        Settings.QUIESCENCE = false;
+        Searcher searcher = new Searcher(engine(new ComputerEnemy(0, StartPlayer.AI, null)), StartPlayer.AI, null);
+        Assert.assertEquals(board.computeHeuristic(StartPlayer.AI),
+                searcher.negamax(board, 0, -ComputerEnemy.INFINITY, ComputerEnemy.INFINITY, 1));
+
+        Settings.QUIESCENCE = true;
+        searcher = new Searcher(engine(new ComputerEnemy(0, StartPlayer.AI, null)), StartPlayer.AI, null);
+        int score = searcher.negamax(board, 0, -ComputerEnemy.INFINITY, ComputerEnemy.INFINITY, 1);
+        Assert.assertTrue(searcher.quiescenceNodes > 0);
+        // the multi-jump takes more men
+        Assert.assertTrue(score > board.computeHeuristic(StartPlayer.AI));
+    }
+
+    @Test
+    public void test_lazySmpReturnsLegalMove() {
+        GameState state = randomPosition(5, 12);
+        Settings.AI_THREADS = 4;
+        Settings.LAZY_SMP = true;
+        ComputerEnemy ai = engine(new ComputerEnemy(64, 200, StartPlayer.AI, new TranspositionTable(4)));
+        GameState next = ai.makeMove(state, StartPlayer.AI);
+        Assert.assertTrue(state.getSuccessors().contains(next));
+        Assert.assertEquals(4, ai.getStatistics().getThreads());
+    }
+
+    @Test
+    public void test_ponderingOnExpectedReply() {
+        ComputerEnemy ai = engine(new ComputerEnemy(6, StartPlayer.AI, new TranspositionTable(4)));
+        GameState state = randomPosition(5, 12);
+        do {
+            state = ai.makeMove(state, StartPlayer.AI);
+        } while (state.getTurn() == StartPlayer.AI);
+
+        // the expected reply continues the search
+        ai.startPondering(state);
+        GameState expected = ai.getPonderPosition();
+        Assert.assertNotNull(expected);
+        Assert.assertEquals(StartPlayer.AI, expected.getTurn());
+        GameState next = ai.makeMove(expected, StartPlayer.AI);
+        Assert.assertTrue(expected.getSuccessors().contains(next));
+        Assert.assertNull(ai.getPonderPosition());
+
+        // any other reply stops it and searches afresh
+        ai.startPondering(state);
+        for (GameState reply : state.getSuccessors()) {
+            if (reply.getTurn() == StartPlayer.AI && !reply.equals(ai.getPonderPosition())) {
+                next = ai.makeMove(reply, StartPlayer.AI);
+                Assert.assertTrue(reply.getSuccessors().contains(next));
+                Assert.assertNull(ai.getPonderPosition());
+                break;
+            }
+        }
+        ai.stop();
+    }
+
+    @Test
+    public void test_stopCancelsSearch() throws Exception {
+        GameState state = randomPosition(5, 12);
+        ComputerEnemy ai = engine(new ComputerEnemy(64, StartPlayer.AI, new TranspositionTable(4)));
+        CountDownLatch firstIteration = new CountDownLatch(1);
+        CompletableFuture<GameState> search = ai.makeMoveAsync(state, StartPlayer.AI,
+                best -> firstIteration.countDown());
+        Assert.assertTrue(firstIteration.await(10, TimeUnit.SECONDS));
+        ai.stop();
+        // the search ends without reaching its depth limit and plays the best move found so far
+        GameState next = search.get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(state.getSuccessors().contains(next));
+        Assert.assertTrue(ai.getStatistics().getDepth() < 64);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_rejectsMoveOutOfTurn() {
+        GameState state = GameState.initialState();
+        engine(new ComputerEnemy(2, StartPlayer.AI)).makeMove(state, StartPlayer.AI);
+    }
+}
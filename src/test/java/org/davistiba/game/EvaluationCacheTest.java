@@ -0,0 +1,24 @@
+package org.davistiba.game;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EvaluationCacheTest {
+
+    @Test
+    public void test_storeAndProbe() {
+        EvaluationCache cache = new EvaluationCache(1);
+        long key = 0x123456789ABCDEF0L;
+        Assert.assertEquals(EvaluationCache.MISS, cache.probe(key));
+        cache.store(key, -42);
+        Assert.assertEquals(-42, cache.probe(key));
+        // another position in the same slot replaces it
+        long other = key ^ (1L << 40);
+        cache.store(other, 7);
+        Assert.assertEquals(7, cache.probe(other));
+        Assert.assertEquals(EvaluationCache.MISS, cache.probe(key));
+        // scores of another heuristic are dropped
+        cache.newSearch(Settings.HEURISTIC == 1 ? 2 : 1);
+        Assert.assertEquals(EvaluationCache.MISS, cache.probe(other));
+    }
+}
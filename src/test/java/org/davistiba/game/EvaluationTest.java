@@ -0,0 +1,38 @@
+package org.davistiba.game;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EvaluationTest {
+
+    private static int bit(int x, int y) {
+        return BitBoard.toBit(y * GameState.SIDE_LENGTH + x);
+    }
+
+    @Test
+    public void test_tablesAreMirrored() {
+        int ai = StartPlayer.AI.ordinal();
+        int human = StartPlayer.HUMAN.ordinal();
+        for (int y = 0; y < GameState.SIDE_LENGTH; y++) {
+            for (int x = (y + 1) % 2; x < GameState.SIDE_LENGTH; x += 2) {
+                int mirrored = bit(9 - x, 9 - y);
+                Assert.assertEquals(Evaluation.value(ai, false, bit(x, y)), Evaluation.value(human, false, mirrored));
+                Assert.assertEquals(Evaluation.value(ai, true, bit(x, y)), Evaluation.value(human, true, mirrored));
+            }
+        }
+        // men are worth more as they advance, and on the back rank than just in front of it
+        Assert.assertTrue(Evaluation.value(ai, false, bit(4, 7)) > Evaluation.value(ai, false, bit(4, 3)));
+        Assert.assertTrue(Evaluation.value(ai, false, bit(3, 0)) > Evaluation.value(ai, false, bit(4, 1)));
+    }
+
+    @Test
+    public void test_runawayMan() {
+        int ai = StartPlayer.AI.ordinal();
+        long man = 1L << bit(4, 7);
+        Assert.assertTrue(Evaluation.runaway(ai, man, 1L << bit(0, 3)) > 0);
+        // a piece ahead can stop it
+        Assert.assertEquals(0, Evaluation.runaway(ai, man, 1L << bit(5, 8)));
+        // too far from promotion to count
+        Assert.assertEquals(0, Evaluation.runaway(ai, 1L << bit(4, 5), 0));
+    }
+}
@@ -0,0 +1,73 @@
+package org.davistiba.game;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+public class GameStateTest {
+
+    private final StartPlayer firstMove = Settings.FIRSTMOVE;
+
+    @After
+    public void restoreSettings() {
+        Settings.FIRSTMOVE = firstMove;
+    }
+
+    @Test
+    public void test_initialState() {
+        Settings.FIRSTMOVE = StartPlayer.HUMAN;
+        GameState state = GameState.initialState();
+        Assert.assertEquals(15, state.getPieceCount(StartPlayer.AI));
+        Assert.assertEquals(25, state.getPieceCount(StartPlayer.HUMAN));
+        // dark squares only
+        Assert.assertNull(state.getPiece(0));
+        Assert.assertEquals(StartPlayer.AI, state.getPiece(1).getPlayer());
+        Assert.assertEquals(StartPlayer.HUMAN, state.getPiece(50).getPlayer());
+        Assert.assertNull(state.getPiece(41));
+        // pieces of the same kind are one shared instance
+        Assert.assertSame(state.getPiece(1), state.getPiece(3));
+        Assert.assertSame(PieceLogic.of(StartPlayer.HUMAN, false), state.getPiece(50));
+        // front row of human men: 5 men, the one on the edge has a single move
+        Assert.assertEquals(9, state.getSuccessors().size());
+    }
+
+    @Test
+    public void test_successorsMoveOnePieceDiagonally() {
+        Settings.FIRSTMOVE = StartPlayer.HUMAN;
+        GameState state = GameState.initialState();
+        ArrayList<GameState> successors = state.getSuccessors(52);
+        Assert.assertEquals(2, successors.size());
+        for (GameState next : successors) {
+            Assert.assertEquals(52, next.getFromPos());
+            Assert.assertEquals(1, Math.abs(next.getToPos() % GameState.SIDE_LENGTH - 2));
+            Assert.assertEquals(4, next.getToPos() / GameState.SIDE_LENGTH);
+            Assert.assertNull(next.getPiece(52));
+            Assert.assertEquals(StartPlayer.HUMAN, next.getPiece(next.getToPos()).getPlayer());
+            Assert.assertEquals(StartPlayer.AI, next.getTurn());
+        }
+    }
+
+    @Test
+    public void test_equalsAndHashCodeIgnoreMoveOrder() {
+        Settings.FIRSTMOVE = StartPlayer.HUMAN;
+        GameState state = GameState.initialState();
+        // two human moves on opposite sides of the board, with the same AI reply in between
+        GameState a = move(move(move(state, 50, 41), 21, 30), 58, 47);
+        GameState b = move(move(move(state, 58, 47), 21, 30), 50, 41);
+        Assert.assertNotSame(a, b);
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a.hashCode(), b.hashCode());
+        Assert.assertNotEquals(state, a);
+    }
+
+    private static GameState move(GameState state, int from, int to) {
+        for (GameState next : state.getSuccessors(from)) {
+            if (next.getToPos() == to) {
+                return next;
+            }
+        }
+        throw new AssertionError("No move " + from + "-" + to);
+    }
+}
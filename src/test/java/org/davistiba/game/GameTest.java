@@ -0,0 +1,31 @@
+package org.davistiba.game;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class GameTest {
+
+    @Test
+    public void test_jumpsBetweenTheSameSquaresAreNotGuessed() {
+        // the man on bit 52 takes 46, then 35 and 24 or 34 and 23, landing on 18 either way
+        long aiMen = 1L << 46 | 1L << 35 | 1L << 24 | 1L << 34 | 1L << 23;
+        GameState start = new GameState(BitBoard.of(aiMen, 0, 1L << 52, 0, StartPlayer.HUMAN));
+        int fromPos = BitBoard.toSquare(52);
+        int toPos = BitBoard.toSquare(18);
+        try (Game game = new Game(start)) {
+            List<GameState> jumps = game.getJumps(fromPos, toPos);
+            Assert.assertEquals(2, jumps.size());
+            Assert.assertNotEquals(jumps.get(0).getBoard().aiMen, jumps.get(1).getBoard().aiMen);
+
+            int dx = toPos % GameState.SIDE_LENGTH - fromPos % GameState.SIDE_LENGTH;
+            int dy = toPos / GameState.SIDE_LENGTH - fromPos / GameState.SIDE_LENGTH;
+            Assert.assertEquals(Messages.AMBIGUOUS_JUMP, game.playerMove(fromPos, dx, dy));
+            Assert.assertSame(start, game.getState());
+
+            game.playerMove(jumps.get(1));
+            Assert.assertEquals(jumps.get(1), game.getState());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.davistiba.game;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class HintServiceTest {
+
+    private final StartPlayer firstMove = Settings.FIRSTMOVE;
+
+    @Before
+    public void setUp() {
+        Settings.FIRSTMOVE = StartPlayer.HUMAN;
+    }
+
+    @After
+    public void restoreSettings() {
+        Settings.FIRSTMOVE = firstMove;
+    }
+
+    @Test
+    public void test_hintIsLegalAndCached() throws Exception {
+        try (HintService hints = new HintService()) {
+            checkHintIsLegalAndCached(hints);
+        }
+    }
+
+    private void checkHintIsLegalAndCached(HintService hints) throws Exception {
+        GameState state = GameState.initialState();
+
+        // one hint for each of the ten iterations, then the finished hint
+        CompletableFuture<GameState> finished = new CompletableFuture<>();
+        List<GameState> published = new ArrayList<>();
+        hints.requestHint(state, hint -> {
+            published.add(hint);
+            if (published.size() == 11) {
+                finished.complete(hint);
+            }
+        });
+        GameState hint = finished.get(30, TimeUnit.SECONDS);
+        Assert.assertTrue(state.getSuccessors().contains(hint));
+
+        // a repeated request is answered at once
+        List<GameState> cached = new ArrayList<>();
+        hints.requestHint(state, cached::add);
+        Assert.assertEquals(1, cached.size());
+        Assert.assertEquals(hint, cached.get(0));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void test_closedServiceRejectsRequests() {
+        HintService hints = new HintService();
+        hints.close();
+        hints.requestHint(GameState.initialState(), hint -> {
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package org.davistiba.game;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+public class OpeningBookTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final StartPlayer firstMove = Settings.FIRSTMOVE;
+    private final String openingBook = Settings.OPENING_BOOK;
+
+    @After
+    public void restoreSettings() {
+        Settings.FIRSTMOVE = firstMove;
+        Settings.OPENING_BOOK = openingBook;
+    }
+
+    @Test
+    public void test_choosesMovesByWeight() throws Exception {
+        BitBoard position = BitBoard.initial(StartPlayer.AI);
+        MoveList moves = new MoveList();
+        new SearchBoard(position).generateMoves(moves);
+        BitBoard other = position.play(moves.get(0));
+        List<OpeningBook.Entry> entries = Arrays.asList(
+                new OpeningBook.Entry(position.getKey(), moves.get(1), 1, 10),
+                new OpeningBook.Entry(other.getKey(), 0, 5, 0),
+                new OpeningBook.Entry(position.getKey(), moves.get(2), 3, 20));
+        Path file = folder.newFile().toPath();
+        OpeningBook.write(file, entries);
+        OpeningBook book = OpeningBook.open(file);
+        Assert.assertEquals(3, book.size());
+
+        Random random = new Random(1);
+        int[] counts = new int[2];
+        for (int i = 0; i < 4000; i++) {
+            GameState next = book.choose(position, random);
+            if (next.getBoard().equals(position.play(moves.get(1)))) {
+                counts[0]++;
+            } else {
+                Assert.assertEquals(position.play(moves.get(2)), next.getBoard());
+                counts[1]++;
+            }
+        }
+        // weights 1 and 3
+        Assert.assertEquals(3.0, (double) counts[1] / counts[0], 0.5);
+
+        // an entry whose move is not legal is never played
+        Assert.assertTrue(book.contains(other));
+        Assert.assertNull(book.choose(other, random));
+        Assert.assertFalse(book.contains(BitBoard.initial(StartPlayer.HUMAN)));
+        Assert.assertNull(book.choose(BitBoard.initial(StartPlayer.HUMAN), random));
+    }
+
+    @Test
+    public void test_gameAnswersFromSelfPlayBook() throws Exception {
+        Path file = folder.newFile().toPath();
+        Assert.assertTrue(new OpeningBookBuilder(4, 0, 2).build(file, 4, 0) > 0);
+
+        Settings.OPENING_BOOK = file.toString();
+        Settings.FIRSTMOVE = StartPlayer.AI;
+        Game game = new Game();
+        ArrayList<GameState> successors = game.getState().getSuccessors();
+        CompletableFuture<GameState> move = game.findAiMove();
+        // no search needed
+        Assert.assertTrue(move.isDone());
+        Assert.assertTrue(successors.contains(move.join()));
+    }
+}
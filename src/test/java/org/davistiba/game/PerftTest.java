@@ -0,0 +1,59 @@
+package org.davistiba.game;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class PerftTest {
+
+    private static final String MULTI_JUMPS = Perft.REFERENCES[2].position;
+
+    @Test
+    public void test_referenceCounts() {
+        long[] counts = new Perft(16).countReferences(new ForkJoinPool(2));
+        for (int i = 0; i < Perft.REFERENCES.length; i++) {
+            Assert.assertEquals(Perft.REFERENCES[i].position, Perft.REFERENCES[i].count, counts[i]);
+        }
+    }
+
+    @Test
+    public void test_serialParallelAndCachedCountsAgree() {
+        GameState position = Perft.parse(Perft.REFERENCES[0].position);
+        long serial = new Perft(0).count(position, 5);
+        Assert.assertEquals(serial, new Perft(0).count(position, 5, new ForkJoinPool(4)));
+        Assert.assertEquals(serial, new Perft(1).count(position, 5, new ForkJoinPool(4)));
+    }
+
+    @Test
+    public void test_multiJumpIsOneMove() {
+        GameState position = Perft.parse(MULTI_JUMPS);
+        // every whole multi-jump is one successor
+        Assert.assertEquals(3, position.getSuccessors().size());
+        List<Perft.Division> divisions = new Perft(0).divide(position, 1, new ForkJoinPool(1));
+        Assert.assertEquals(3, divisions.size());
+        Assert.assertEquals("8x17x26", divisions.get(0).getMove());
+        Assert.assertEquals("8x17x28x37x46", divisions.get(1).getMove());
+        Assert.assertEquals("36x47", divisions.get(2).getMove());
+        for (Perft.Division d : divisions) {
+            Assert.assertEquals(StartPlayer.HUMAN, d.getPosition().getTurn());
+        }
+    }
+
+    @Test
+    public void test_divideSumsToCount() {
+        GameState position = Perft.parse(MULTI_JUMPS);
+        long total = 0;
+        for (Perft.Division d : new Perft(0).divide(position, 4, new ForkJoinPool(2))) {
+            total += d.getCount();
+        }
+        Assert.assertEquals(new Perft(0).count(position, 4), total);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_rejectsPieceOnLightSquare() {
+        Perft.parse("a........./........../........../........../........../........../........../"
+                + "........../........../.........h a");
+    }
+}
@@ -0,0 +1,123 @@
+package org.davistiba.game;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+public class SearchBoardTest {
+
+    private static void assertSameMaterial(BitBoard expected, SearchBoard actual) {
+        for (StartPlayer player : StartPlayer.values()) {
+            Assert.assertEquals(expected.pieceCount(player), actual.pieceCount(player));
+            Assert.assertEquals(expected.kingCount(player), actual.kingCount(player));
+            Assert.assertEquals(Evaluation.evaluate(expected, player), actual.evaluate(player));
+        }
+        Assert.assertEquals(expected.isGameOver(), actual.isGameOver());
+    }
+
+    private static void assertSamePosition(BitBoard expected, BitBoard actual) {
+        Assert.assertEquals(expected.aiMen, actual.aiMen);
+        Assert.assertEquals(expected.aiKings, actual.aiKings);
+        Assert.assertEquals(expected.humanMen, actual.humanMen);
+        Assert.assertEquals(expected.humanKings, actual.humanKings);
+        Assert.assertEquals(expected.turn, actual.turn);
+        Assert.assertEquals(expected.key, actual.key);
+    }
+
+    @Test
+    public void test_makeUnmakeMatchesImmutableBoard() {
+        Random random = new Random(42);
+        for (int game = 0; game < 20; game++) {
+            BitBoard position = BitBoard.initial(StartPlayer.HUMAN);
+            SearchBoard board = new SearchBoard(position);
+            int made = 0;
+            while (!position.isGameOver() && made < 200) {
+                MoveList moves = new MoveList();
+                board.generateMoves(moves);
+                Assert.assertEquals(position.successors().size(), moves.size());
+                if (moves.isEmpty()) {
+                    break;
+                }
+                // every move can be made and taken back
+                for (int i = 0; i < moves.size(); i++) {
+                    board.makeMove(moves.get(i));
+                    assertSamePosition(position.play(moves.get(i)), board.toBitBoard());
+                    assertSameMaterial(position.play(moves.get(i)), board);
+                    board.unmakeMove();
+                    assertSamePosition(position, board.toBitBoard());
+                    assertSameMaterial(position, board);
+                }
+                long move = moves.get(random.nextInt(moves.size()));
+                board.makeMove(move);
+                position = position.play(move);
+                made++;
+            }
+            // unwinding the whole game restores the initial position
+            for (int i = 0; i < made; i++) {
+                board.unmakeMove();
+            }
+            assertSamePosition(BitBoard.initial(StartPlayer.HUMAN), board.toBitBoard());
+        }
+    }
+
+    @Test
+    public void test_kingCirclingBackIsOneMove() {
+        // the king takes the four men clockwise or anticlockwise, both ending where it started
+        BitBoard position = Perft.parse("........../........../........../..h.h...../.A......../..h.h...../"
+                + "........../........../........../.......... a").getBoard();
+        SearchBoard board = new SearchBoard(position);
+        MoveList moves = new MoveList();
+        board.generateMoves(moves);
+        Assert.assertEquals(1, moves.size());
+        long move = moves.get(0);
+        Assert.assertEquals(Move.from(move), Move.to(move));
+        Assert.assertEquals(4, Long.bitCount(Move.captures(move)));
+
+        board.makeMove(move);
+        Assert.assertTrue(board.isGameOver());
+        assertSamePosition(position.play(move), board.toBitBoard());
+        assertSameMaterial(position.play(move), board);
+        board.unmakeMove();
+        assertSamePosition(position, board.toBitBoard());
+        assertSameMaterial(position, board);
+        // shown hop by hop, one man gone after each hop
+        List<BitBoard> hops = position.hops(move);
+        Assert.assertEquals(4, hops.size());
+        for (int i = 0; i < hops.size(); i++) {
+            Assert.assertEquals(3 - i, hops.get(i).pieceCount(StartPlayer.HUMAN));
+        }
+    }
+
+    @Test
+    public void test_chainsBetweenTheSameSquaresHaveDistinctIds() {
+        // the man on bit 1 takes 7, then 18 and 29 or 19 and 30, landing on 35 either way
+        long humanMen = 1L << 7 | 1L << 18 | 1L << 29 | 1L << 19 | 1L << 30;
+        BitBoard position = BitBoard.of(1L << 1, 0, humanMen, 0, StartPlayer.AI);
+        MoveList moves = new MoveList();
+        new SearchBoard(position).generateMoves(moves);
+        Assert.assertEquals(2, moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            long move = moves.get(i);
+            Assert.assertEquals(1, Move.from(move));
+            Assert.assertEquals(35, Move.to(move));
+            Assert.assertEquals(move, Move.find(moves, Move.id(move)));
+        }
+        Assert.assertNotEquals(Move.id(moves.get(0)), Move.id(moves.get(1)));
+    }
+
+    @Test
+    public void test_kingEndsMultiJumpOnPromotionRow() {
+        // the king on bit 38 takes 44 and lands on the AI's promotion row, where it stops instead of taking 45
+        BitBoard position = BitBoard.of(0, 1L << 38, 1L << 44 | 1L << 45, 0, StartPlayer.AI);
+        MoveList moves = new MoveList();
+        new SearchBoard(position).generateMoves(moves);
+        Assert.assertEquals(1, moves.size());
+        long move = moves.get(0);
+        Assert.assertEquals(50, Move.to(move));
+        Assert.assertEquals(1L << 44, Move.captures(move));
+        Assert.assertFalse(Move.isCrowning(move));
+        Assert.assertEquals(1L << 50, position.play(move).kings(StartPlayer.AI));
+    }
+}
@@ -0,0 +1,87 @@
+package org.davistiba.game;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class SearchMetricsTest {
+
+    @Test
+    public void test_searchesAreRecorded() {
+        SearchMetrics.Snapshot move;
+        SearchStatistics statistics;
+        try (ComputerEnemy ai = new ComputerEnemy(4, StartPlayer.AI)) {
+            SearchMetrics.Snapshot before = ai.getMetrics().snapshot();
+            GameState state = ComputerEnemyTest.randomPosition(4, 10);
+            ai.makeMove(state, StartPlayer.AI);
+            move = ai.getMetrics().snapshot().since(before);
+            statistics = ai.getStatistics();
+        }
+        Assert.assertEquals(1, move.getMoves());
+        Assert.assertEquals(statistics.getNodes(), move.getNodes());
+        Assert.assertEquals(statistics.getEvaluations(), move.getEvaluations());
+        Assert.assertEquals(statistics.getTableHits(), move.getTableHits());
+        Assert.assertTrue(move.getEvaluations() > 0);
+        Assert.assertTrue(move.getTableProbes() >= move.getTableHits());
+        Assert.assertEquals(4, move.getAverageDepth(), 0);
+        long[] histogram = move.getLatencyHistogram();
+        Assert.assertEquals(1, histogram[SearchMetrics.latencyBucket(statistics.getTimeMs())]);
+    }
+
+    @Test
+    public void test_latencyBuckets() {
+        Assert.assertEquals(0, SearchMetrics.latencyBucket(0));
+        Assert.assertEquals(1, SearchMetrics.latencyBucket(1));
+        Assert.assertEquals(2, SearchMetrics.latencyBucket(3));
+        Assert.assertEquals(11, SearchMetrics.latencyBucket(1500));
+        Assert.assertEquals(SearchMetrics.LATENCY_BUCKETS - 1, SearchMetrics.latencyBucket(Long.MAX_VALUE));
+
+        long[] histogram = new long[SearchMetrics.LATENCY_BUCKETS];
+        histogram[3] = 9;
+        histogram[11] = 1;
+        SearchMetrics.Snapshot snapshot = new SearchMetrics.Snapshot(0, 10, 0, 0, 0, 0, 0, 0, 0, 0, 0, histogram);
+        Assert.assertEquals(8, snapshot.getLatencyPercentileMs(50));
+        Assert.assertEquals(8, snapshot.getLatencyPercentileMs(90));
+        Assert.assertEquals(2048, snapshot.getLatencyPercentileMs(95));
+    }
+
+    @Test
+    public void test_publishedOverJmx() throws Exception {
+        SearchMetrics metrics = SearchMetrics.forPlayer(StartPlayer.HUMAN);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.davistiba.game:type=SearchMetrics,player=HUMAN");
+        Assert.assertTrue(server.isRegistered(name));
+        Assert.assertEquals(metrics.getMoves(), server.getAttribute(name, "Moves"));
+        Assert.assertEquals(SearchMetrics.LATENCY_BUCKETS, ((long[]) server.getAttribute(name, "LatencyHistogram")).length);
+    }
+
+    @Test
+    public void test_periodicSnapshotsHoldTheInterval() throws InterruptedException {
+        SearchMetrics metrics = new SearchMetrics();
+        BlockingQueue<SearchMetrics.Snapshot> published = new ArrayBlockingQueue<>(100);
+        ScheduledFuture<?> publisher = metrics.publishEvery(20, TimeUnit.MILLISECONDS, published::offer);
+        try (ComputerEnemy ai = new ComputerEnemy(3, StartPlayer.AI)) {
+            ai.makeMove(ComputerEnemyTest.randomPosition(8, 10), StartPlayer.AI);
+            metrics.record(ai.getStatistics());
+            long moves = 0;
+            long nodes = 0;
+            while (moves == 0) {
+                SearchMetrics.Snapshot interval = published.poll(5, TimeUnit.SECONDS);
+                Assert.assertNotNull(interval);
+                moves += interval.getMoves();
+                nodes += interval.getNodes();
+            }
+            Assert.assertEquals(1, moves);
+            Assert.assertEquals(ai.getStatistics().getNodes(), nodes);
+        } finally {
+            publisher.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.davistiba.game;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+public class TablebaseTest {
+
+    @ClassRule
+    public static final TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String tablebaseDir = Settings.TABLEBASE_DIR;
+    private static Path directory;
+    private static Tablebase tablebase;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        directory = folder.newFolder("tablebases").toPath();
+        TablebaseGenerator.generate(directory, 3);
+        tablebase = Tablebase.open(directory);
+    }
+
+    @AfterClass
+    public static void restoreSettings() {
+        Settings.TABLEBASE_DIR = tablebaseDir;
+    }
+
+    private static BitBoard position(long aiKings, long humanKings, StartPlayer turn) {
+        return BitBoard.of(0, aiKings, 0, humanKings, turn);
+    }
+
+    @Test
+    public void test_rankRoundTrip() {
+        for (int kings = 1; kings <= 3; kings++) {
+            for (int rank = 0; rank < Tablebase.combinations(kings); rank++) {
+                long mask = Tablebase.unrank(rank, kings);
+                Assert.assertEquals(kings, Long.bitCount(mask));
+                Assert.assertEquals(0, mask & ~BitBoard.VALID);
+                Assert.assertEquals(rank, Tablebase.rank(mask));
+            }
+        }
+    }
+
+    @Test
+    public void test_memoryCeiling() {
+        // the largest tables fit in a default heap of a machine with 4 GB
+        Assert.assertTrue(TablebaseGenerator.peakMemory(5) < 64L << 20);
+        Assert.assertTrue(TablebaseGenerator.peakMemory(6) < 1L << 30);
+    }
+
+    /**
+     * Every stored value agrees with the values of the successors, played with the game's own rules.
+     */
+    @Test
+    public void test_valuesAgreeWithSuccessors() {
+        int[][] materials = {{1, 1}, {1, 2}, {2, 1}};
+        for (int[] material : materials) {
+            for (int own = 0; own < Tablebase.combinations(material[0]); own++) {
+                for (int opponent = 0; opponent < Tablebase.combinations(material[1]); opponent++) {
+                    long ownKings = Tablebase.unrank(own, material[0]);
+                    long opponentKings = Tablebase.unrank(opponent, material[1]);
+                    if ((ownKings & opponentKings) == 0) {
+                        checkPosition(position(ownKings, opponentKings, StartPlayer.AI));
+                        checkPosition(position(opponentKings, ownKings, StartPlayer.HUMAN));
+                    }
+                }
+            }
+        }
+    }
+
+    private void checkPosition(BitBoard position) {
+        StartPlayer turn = position.getTurn();
+        int stored = tablebase.probe(turn, position.kings(turn), position.kings(turn.getOpposite()));
+        boolean win = false;
+        boolean allLost = true;
+        boolean distanceFound = false;
+        int longestLoss = 0;
+        for (BitBoard child : position.successors()) {
+            int value = valueForMover(child);
+            if (Tablebase.isWin(value)) {
+                win = true;
+                distanceFound |= Tablebase.distance(value) == Tablebase.distance(stored);
+            } else if (Tablebase.isLoss(value)) {
+                longestLoss = Math.max(longestLoss, Tablebase.distance(value));
+            } else {
+                allLost = false;
+            }
+        }
+        if (win) {
+            Assert.assertTrue(Tablebase.isWin(stored));
+            Assert.assertTrue(distanceFound);
+        } else if (allLost) {
+            Assert.assertTrue(Tablebase.isLoss(stored));
+            Assert.assertEquals(longestLoss, Tablebase.distance(stored));
+        } else {
+            Assert.assertEquals(0, stored);
+        }
+    }
+
+    /**
+     * Value of a successor for the player who moved into it.
+     */
+    private int valueForMover(BitBoard child) {
+        if (child.isGameOver()) {
+            return 1;
+        }
+        StartPlayer turn = child.getTurn();
+        int value = tablebase.probe(turn, child.kings(turn), child.kings(turn.getOpposite()));
+        if (value == 0) {
+            return 0;
+        }
+        int distance = Tablebase.distance(value) + 1;
+        return Tablebase.isWin(value) ? -distance - 1 : distance;
+    }
+
+    @Test
+    public void test_searchPlaysTablebaseWin() {
+        Settings.TABLEBASE_DIR = directory.toString();
+        // two kings against one: find a position the AI wins but not straight away
+        BitBoard start = null;
+        for (int own = 0; own < Tablebase.combinations(2) && start == null; own++) {
+            for (int opponent = 0; opponent < Tablebase.combinations(1) && start == null; opponent++) {
+                long ownKings = Tablebase.unrank(own, 2);
+                long opponentKings = Tablebase.unrank(opponent, 1);
+                int value = tablebase.probe(StartPlayer.AI, ownKings, opponentKings);
+                if ((ownKings & opponentKings) == 0 && Tablebase.isWin(value) && Tablebase.distance(value) > 5) {
+                    start = position(ownKings, opponentKings, StartPlayer.AI);
+                }
+            }
+        }
+        Assert.assertNotNull(start);
+
+        BitBoard board;
+        try (ComputerEnemy ai = new ComputerEnemy(3, StartPlayer.AI, null)) {
+            board = ai.makeMove(new GameState(start), StartPlayer.AI).getBoard();
+            Assert.assertTrue(ai.getStatistics().getTablebaseHits() > 0);
+        }
+        // the move keeps the win
+        if (!board.isGameOver()) {
+            Assert.assertEquals(StartPlayer.HUMAN, board.getTurn());
+            Assert.assertTrue(Tablebase.isLoss(tablebase.probe(StartPlayer.HUMAN, board.humanKings, board.aiKings)));
+        }
+    }
+}
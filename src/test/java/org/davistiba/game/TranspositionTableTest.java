@@ -0,0 +1,44 @@
+package org.davistiba.game;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void test_storeAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = Move.id(Move.encode(12, 17, 0, false));
+        table.store(0xCAFEL, 7, TranspositionTable.LOWER, -1234, move);
+        long entry = table.probe(0xCAFEL);
+        Assert.assertNotEquals(0, entry);
+        Assert.assertEquals(7, TranspositionTable.depth(entry));
+        Assert.assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        Assert.assertEquals(-1234, TranspositionTable.score(entry));
+        Assert.assertEquals(move, TranspositionTable.move(entry));
+        Assert.assertEquals(0, table.probe(0xBEEFL));
+    }
+
+    @Test
+    public void test_replacementPrefersDeeperAndNewerEntries() {
+        TranspositionTable table = new TranspositionTable(1);
+        long bucketSpan = table.capacity() / 2;
+        // three keys mapping to the same bucket
+        long a = 3;
+        long b = 3 + bucketSpan;
+        long c = 3 + 2 * bucketSpan;
+        table.store(a, 9, TranspositionTable.EXACT, 1, 0);
+        table.store(b, 2, TranspositionTable.EXACT, 2, 0);
+        table.store(c, 5, TranspositionTable.EXACT, 3, 0);
+        // the shallow entry was replaced
+        Assert.assertNotEquals(0, table.probe(a));
+        Assert.assertEquals(0, table.probe(b));
+        Assert.assertNotEquals(0, table.probe(c));
+        // in a new search, old entries give way even if deeper
+        table.newSearch();
+        table.store(b, 1, TranspositionTable.EXACT, 2, 0);
+        Assert.assertNotEquals(0, table.probe(b));
+        Assert.assertNotEquals(0, table.probe(a));
+        Assert.assertEquals(0, table.probe(c));
+    }
+}